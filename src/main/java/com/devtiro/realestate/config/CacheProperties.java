@@ -0,0 +1,41 @@
+package com.devtiro.realestate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size and expiry per named cache, bound from app.cache.caches.* in application.yml
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.cache")
+public class CacheProperties {
+
+    // Keyed by cache name, e.g. usersByEmail
+    private Map<String, Spec> caches = new LinkedHashMap<>();
+
+    @Data
+    public static class Spec {
+
+        private long maximumSize = 1000;
+
+        // null leaves the expiry off
+        private Duration expireAfterWrite;
+
+        private Duration expireAfterAccess;
+
+        // Replaces expireAfterWrite while app.user-events.transport is local, for caches evicted by user change events
+        private Duration localTransportExpireAfterWrite;
+
+        // Only used by loading caches, entries older than this are reloaded in the background on access
+        private Duration refreshAfterWrite;
+
+        // Entries loaded by warming, for caches with a warmer
+        private int warmSize = 500;
+    }
+}
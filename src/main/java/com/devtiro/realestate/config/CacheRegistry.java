@@ -0,0 +1,165 @@
+package com.devtiro.realestate.config;
+
+import com.devtiro.realestate.security.MetricsService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * All Caffeine caches of the application, configured from {@link CacheProperties}
+ *
+ * Caches used through @Cacheable are created here for the Spring cache manager, caches used directly, such as
+ * loading caches, are built from {@link #newBuilder(String)} and registered by their owner. Every registered
+ * cache records stats, is bound to Micrometer and can be inspected, warmed or cleared by admins.
+ *
+ * With the local user change transport no other node hears about a user change, caches configured with a
+ * local-transport-expire-after-write use that shorter TTL instead, it alone bounds their staleness on other nodes.
+ */
+@Slf4j
+@Component
+public class CacheRegistry {
+
+    public static final String USERS_BY_EMAIL = "usersByEmail";
+    public static final String SEARCH_RESULTS = "searchResults";
+
+    private final CacheProperties cacheProperties;
+    private final MetricsService metricsService;
+    private final CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+    private final Map<String, RegisteredCache> caches = new ConcurrentHashMap<>();
+
+    public CacheRegistry(
+            CacheProperties cacheProperties,
+            MetricsService metricsService,
+            @Value("${app.user-events.transport:local}") String userEventsTransport
+    ) {
+        this.cacheProperties = cacheProperties;
+        this.metricsService = metricsService;
+
+        if ("local".equals(userEventsTransport)) {
+            useLocalTransportExpiry();
+        }
+
+        // Static mode, an unknown name in @Cacheable fails instead of creating an unbounded cache
+        cacheManager.setCacheNames(List.of());
+        register(USERS_BY_EMAIL, newBuilder(USERS_BY_EMAIL).build());
+        register(SEARCH_RESULTS, newBuilder(SEARCH_RESULTS).build());
+    }
+
+    /**
+     * Loads a cache with the entries most likely to be read, returns the number of entries loaded
+     */
+    @FunctionalInterface
+    public interface Warmer {
+        int warm();
+    }
+
+    /**
+     * Cache builder with the configured size and expiry of the named cache
+     */
+    public Caffeine<Object, Object> newBuilder(String name) {
+        CacheProperties.Spec spec = getSpec(name);
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(spec.getMaximumSize())
+                .recordStats();
+        if (spec.getExpireAfterWrite() != null) {
+            builder.expireAfterWrite(spec.getExpireAfterWrite());
+        }
+        if (spec.getExpireAfterAccess() != null) {
+            builder.expireAfterAccess(spec.getExpireAfterAccess());
+        }
+        if (spec.getRefreshAfterWrite() != null) {
+            // Caffeine rejects this when building a cache without a loader
+            builder.refreshAfterWrite(spec.getRefreshAfterWrite());
+        }
+        return builder;
+    }
+
+    public <C extends Cache<?, ?>> C register(String name, C cache) {
+        return register(name, cache, null);
+    }
+
+    /**
+     * Make a cache available to @Cacheable, the metrics and the admin endpoint
+     */
+    @SuppressWarnings("unchecked")
+    public <C extends Cache<?, ?>> C register(String name, C cache, Warmer warmer) {
+        if (caches.putIfAbsent(name, new RegisteredCache((Cache<Object, Object>) cache, warmer)) != null) {
+            throw new IllegalStateException("Cache already registered: " + name);
+        }
+        cacheManager.registerCustomCache(name, (Cache<Object, Object>) cache);
+        metricsService.registerCache(name, cache);
+
+        log.info("Registered cache {} with {}", name, getSpec(name));
+        return cache;
+    }
+
+    public CaffeineCacheManager getCacheManager() {
+        return cacheManager;
+    }
+
+    public List<String> getCacheNames() {
+        return caches.keySet().stream().sorted().toList();
+    }
+
+    public Cache<Object, Object> getCache(String name) {
+        return registered(name).cache();
+    }
+
+    public CacheProperties.Spec getSpec(String name) {
+        CacheProperties.Spec spec = cacheProperties.getCaches().get(name);
+        if (spec == null) {
+            throw new IllegalStateException("No app.cache.caches." + name + " configured");
+        }
+        return spec;
+    }
+
+    public boolean isWarmable(String name) {
+        return registered(name).warmer() != null;
+    }
+
+    /**
+     * Run the warmer of a cache, returns the number of entries loaded
+     */
+    public int warm(String name) {
+        Warmer warmer = registered(name).warmer();
+        if (warmer == null) {
+            throw new IllegalStateException("Cache " + name + " has no warmer, it fills on demand");
+        }
+        int loaded = warmer.warm();
+        log.info("Warmed cache {} with {} entries", name, loaded);
+        return loaded;
+    }
+
+    public void clear(String name) {
+        registered(name).cache().invalidateAll();
+        log.info("Cleared cache {}", name);
+    }
+
+    private void useLocalTransportExpiry() {
+        cacheProperties.getCaches().forEach((name, spec) -> {
+            if (spec.getLocalTransportExpireAfterWrite() != null) {
+                spec.setExpireAfterWrite(spec.getLocalTransportExpireAfterWrite());
+                log.info("Cache {} expires after {}, changes are not sent to other nodes with the local transport",
+                        name, spec.getExpireAfterWrite());
+            }
+        });
+    }
+
+    private RegisteredCache registered(String name) {
+        RegisteredCache registeredCache = caches.get(name);
+        if (registeredCache == null) {
+            throw new IllegalArgumentException("Cache not found: " + name);
+        }
+        return registeredCache;
+    }
+
+    private record RegisteredCache(Cache<Object, Object> cache, Warmer warmer) {
+    }
+}
@@ -4,25 +4,22 @@ package com.devtiro.realestate.config;
 import com.devtiro.realestate.domain.dto.AuthResponse;
 import com.devtiro.realestate.domain.dto.RegisterRequest;
 import com.devtiro.realestate.domain.entities.*;
+import com.devtiro.realestate.events.UserChangePublisher;
 import com.devtiro.realestate.repositories.PropertyListingRepository;
 import com.devtiro.realestate.repositories.UserRepository;
 import com.devtiro.realestate.services.AuthService;
-import jakarta.servlet.http.HttpServletRequest;
+import com.devtiro.realestate.services.UserUniqueKeyService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.cache.CacheManager;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.elasticsearch.core.geo.GeoPoint;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.math.BigDecimal;
-import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -38,11 +35,19 @@ public class DataConfig {
     @Value("${app.user.email}")
     private String userEmail;
 
+    @Value("${app.admin.email}")
+    private String adminEmail;
+
+    @Value("${app.admin.password:}")
+    private String adminPassword;
+
     private final UserRepository userRepository;
     private final PropertyListingRepository propertyListingRepository;
     private final PasswordEncoder passwordEncoder;
     private final AuthService authService;
     private final CacheManager cacheManager;
+    private final UserChangePublisher userChangePublisher;
+    private final UserUniqueKeyService userUniqueKeyService;
 
     @Bean
     public CommandLineRunner loadSampleData() {
@@ -71,6 +76,12 @@ public class DataConfig {
 
             log.info("Created {} sample home seekers", 2);
 
+            if (adminPassword.isBlank()) {
+                log.warn("ADMIN_PASSWORD is not set, skipping the admin account");
+            } else {
+                createAdmin(adminEmail, adminPassword);
+            }
+
             // Create sample property listings
             List<PropertyListing> properties = new ArrayList<>();
 
@@ -417,6 +428,26 @@ public class DataConfig {
      * The cached and the updated user id has mismatch!!
      */
 
+    /**
+     * The ADMIN role can't be self-registered, the admin is saved directly
+     */
+    private User createAdmin(String email, String password) {
+        User admin = User.builder()
+                .username("admin")
+                .email(email)
+                .password(passwordEncoder.encode(password))
+                .firstName("Admin")
+                .lastName("Admin")
+                .role(Role.ADMIN)
+                .enabled(true)
+                .accountNonLocked(true)
+                .build();
+
+        User savedAdmin = userUniqueKeyService.createUser(admin);
+        log.info("admin id: {}, email: {}", savedAdmin.getId(), savedAdmin.getEmail());
+        return savedAdmin;
+    }
+
     private User createAgent(String email, String firstName, String lastName) {
         User agent = User.builder()
                 .username(firstName.toLowerCase() + "_" + lastName.toLowerCase())
@@ -446,11 +477,8 @@ public class DataConfig {
                 "0:0:0:0:0:0:0:1"
         );
 
-        agent.setRefreshToken(registrationResponse.getRefreshToken());
-        LocalDateTime refreshExpiryInLocalDateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(registrationResponse.getRefreshExpiresIn()), ZoneId.systemDefault());
-        agent.setRefreshTokenExpiryDate(refreshExpiryInLocalDateTime);
-
-        User savedAgent = updateUser(agent);
+        // Registration already saved the user, the refresh token now lives in its own session document
+        User savedAgent = userUniqueKeyService.findUserByEmail(agent.getEmail()).orElseThrow();
         // System.out.println(cacheManager.getCache("usersByEmail").get(savedAgent.getEmail(), User.class).getId());
 
         log.info("agent id: {}, email: {}, accesstoken: {}, refreshtoken: {}", savedAgent.getId(), savedAgent.getEmail(), registrationResponse.getAccessToken(), registrationResponse.getRefreshToken());
@@ -486,24 +514,18 @@ public class DataConfig {
                 "0:0:0:0:0:0:0:1"
         );
 
-        seeker.setRefreshToken(registrationResponse.getRefreshToken());
-        LocalDateTime refreshExpiryInLocalDateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(registrationResponse.getRefreshExpiresIn()), ZoneId.systemDefault());
-        seeker.setRefreshTokenExpiryDate(refreshExpiryInLocalDateTime);
-
-        User savedSeeker = updateUser(seeker);
+        // Registration already saved the user, the refresh token now lives in its own session document
+        User savedSeeker = userUniqueKeyService.findUserByEmail(seeker.getEmail()).orElseThrow();
 
         log.info("home seeker id: {}, email: {}, accesstoken: {}, refreshtoken: {}", savedSeeker.getId(), savedSeeker.getEmail(), registrationResponse.getAccessToken(), registrationResponse.getRefreshToken());
         return savedSeeker;
     }
 
 
-    public User updateUser(User user) {
-        return userRepository.save(user);
-    }
-
-    @CacheEvict(value = "usersByEmail", key = "#user.email")
     public void deleteUser(User user) {
         userRepository.delete(user);
+        userUniqueKeyService.release(user);
+        userChangePublisher.publishDeleted(user);
     }
 
 
@@ -549,13 +571,4 @@ public class DataConfig {
         return property;
     }
 
-    private String getClientIP(HttpServletRequest request) {
-        String xForwardedForHeader = request.getHeader("X-Forwarded-For");
-        if (xForwardedForHeader == null || xForwardedForHeader.isEmpty()) {
-            return request.getRemoteAddr();
-        }
-        // X-Forwarded-For can contain multiple IPs, first one is the client
-        return xForwardedForHeader.split(",")[0].trim();
-    }
-
 }
@@ -4,14 +4,23 @@ import co.elastic.clients.elasticsearch.ElasticsearchClient;
 import co.elastic.clients.json.jackson.JacksonJsonpMapper;
 import co.elastic.clients.transport.ElasticsearchTransport;
 import co.elastic.clients.transport.rest_client.RestClientTransport;
+import com.devtiro.realestate.security.MetricsService;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import lombok.RequiredArgsConstructor;
+import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponseInterceptor;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
 import org.elasticsearch.client.RestClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -25,6 +34,11 @@ import java.net.URISyntaxException;
 @EnableElasticsearchRepositories(basePackages = "com.devtiro.realestate.repositories")
 public class ElasticsearchConfig {
 
+    private static final String OPERATION_ATTRIBUTE = "realestate.elasticsearch.operation";
+    private static final String START_TIME_ATTRIBUTE = "realestate.elasticsearch.start";
+
+    private final MetricsService metricsService;
+
     @Value("${spring.elasticsearch.uris:http://localhost:9200}")
     private String elasticsearchUrl;
 
@@ -34,23 +48,62 @@ public class ElasticsearchConfig {
     @Value("${spring.elasticsearch.password:}")
     private String password;
 
+    @Value("${elasticsearch.client.max-connections:30}")
+    private int maxConnections;
+
+    @Value("${elasticsearch.client.max-connections-per-route:10}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${elasticsearch.slow-query.threshold-millis:500}")
+    private long slowQueryThresholdMillis;
+
+    @Value("${elasticsearch.slow-query.sample-rate:0.1}")
+    private double slowQuerySampleRate;
+
+    @Value("${elasticsearch.slow-query.max-query-chars:10000}")
+    private int slowQueryMaxChars;
+
     @Bean
-    public RestClient restClient() throws URISyntaxException {
+    public RestClient restClient() throws URISyntaxException, IOReactorException {
         var httpHost = HttpHost.create(elasticsearchUrl);
         var builder = RestClient.builder(httpHost);
 
+        // Own the pool so its stats can be exposed, the builder would create an equivalent one internally
+        var connectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(
+                IOReactorConfig.custom()
+                        .setIoThreadCount(Runtime.getRuntime().availableProcessors())
+                        .build()
+        ));
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        metricsService.registerElasticsearchConnectionPool(
+                () -> connectionManager.getTotalStats().getLeased(),
+                () -> connectionManager.getTotalStats().getPending(),
+                () -> connectionManager.getTotalStats().getAvailable(),
+                () -> connectionManager.getTotalStats().getMax()
+        );
+
         // Add authentication if credentials are provided
+        BasicCredentialsProvider credentialsProvider = null;
         if (username != null && !username.isEmpty()) {
-            var credentialsProvider = new BasicCredentialsProvider();
+            credentialsProvider = new BasicCredentialsProvider();
             credentialsProvider.setCredentials(
                     AuthScope.ANY,
                     new UsernamePasswordCredentials(username, password)
             );
-            builder.setHttpClientConfigCallback(httpClientBuilder ->
-                    httpClientBuilder.setDefaultCredentialsProvider(credentialsProvider)
-            );
         }
 
+        var credentials = credentialsProvider;
+        builder.setHttpClientConfigCallback(httpClientBuilder -> {
+            httpClientBuilder.setConnectionManager(connectionManager);
+            httpClientBuilder.addInterceptorLast(requestMetricsInterceptor());
+            httpClientBuilder.addInterceptorLast(responseMetricsInterceptor());
+            if (credentials != null) {
+                httpClientBuilder.setDefaultCredentialsProvider(credentials);
+            }
+            return httpClientBuilder;
+        });
+
         return builder.build();
     }
 
@@ -61,7 +114,13 @@ public class ElasticsearchConfig {
         // IMPORTANT: Ignore unknown properties like _class
         objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
-        return new RestClientTransport(restClient, new JacksonJsonpMapper(objectMapper));
+        return new InstrumentedElasticsearchTransport(
+                new RestClientTransport(restClient, new JacksonJsonpMapper(objectMapper)),
+                metricsService,
+                slowQueryThresholdMillis,
+                slowQuerySampleRate,
+                slowQueryMaxChars
+        );
     }
 
     @Bean
@@ -69,5 +128,53 @@ public class ElasticsearchConfig {
         return new ElasticsearchClient(transport);
     }
 
+    /**
+     * Runs once the connection is leased, so the round trip below excludes the wait for the pool
+     */
+    private HttpRequestInterceptor requestMetricsInterceptor() {
+        return (request, context) -> {
+            String operation = operation(request);
+            context.setAttribute(OPERATION_ATTRIBUTE, operation);
+            context.setAttribute(START_TIME_ATTRIBUTE, System.nanoTime());
+            if (request instanceof HttpEntityEnclosingRequest enclosingRequest && enclosingRequest.getEntity() != null) {
+                long length = enclosingRequest.getEntity().getContentLength();
+                if (length >= 0) {
+                    metricsService.recordElasticsearchRequestSize(operation, length);
+                }
+            }
+        };
+    }
+
+    /**
+     * Runs when the response headers arrived, before the body is read and parsed
+     */
+    private HttpResponseInterceptor responseMetricsInterceptor() {
+        return (response, context) -> {
+            if (!(context.getAttribute(OPERATION_ATTRIBUTE) instanceof String operation)
+                    || !(context.getAttribute(START_TIME_ATTRIBUTE) instanceof Long startTime)) {
+                return;
+            }
+            metricsService.recordElasticsearchRoundTrip(operation, System.nanoTime() - startTime);
+            // Unknown for chunked or compressed bodies, those are left out of the size distribution
+            if (response.getEntity() != null && response.getEntity().getContentLength() >= 0) {
+                metricsService.recordElasticsearchResponseSize(operation, response.getEntity().getContentLength());
+            }
+        };
+    }
+
+    /**
+     * First "_" segment of the path, e.g. "_search", or "index" for index level calls such as create and delete
+     */
+    private static String operation(HttpRequest request) {
+        String uri = request.getRequestLine().getUri();
+        int queryStart = uri.indexOf('?');
+        String path = queryStart >= 0 ? uri.substring(0, queryStart) : uri;
+        for (String segment : path.split("/")) {
+            if (segment.startsWith("_")) {
+                return segment;
+            }
+        }
+        return "index";
+    }
 
 }
\ No newline at end of file
@@ -0,0 +1,175 @@
+package com.devtiro.realestate.config;
+
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.CountRequest;
+import co.elastic.clients.elasticsearch.core.DeleteByQueryRequest;
+import co.elastic.clients.elasticsearch.core.DeleteByQueryResponse;
+import co.elastic.clients.elasticsearch.core.DeleteRequest;
+import co.elastic.clients.elasticsearch.core.GetRequest;
+import co.elastic.clients.elasticsearch.core.IndexRequest;
+import co.elastic.clients.elasticsearch.core.MgetRequest;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.UpdateByQueryRequest;
+import co.elastic.clients.elasticsearch.core.UpdateByQueryResponse;
+import co.elastic.clients.elasticsearch.core.UpdateRequest;
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.json.JsonpSerializable;
+import co.elastic.clients.json.JsonpUtils;
+import co.elastic.clients.transport.ElasticsearchTransport;
+import co.elastic.clients.transport.Endpoint;
+import co.elastic.clients.transport.TransportOptions;
+import com.devtiro.realestate.security.MetricsService;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every Elasticsearch call on the client side and records the server's took where the response has one
+ *
+ * Client time minus took is serialization, network, connection pool wait and deserialization, the HTTP
+ * interceptors in {@link ElasticsearchConfig} narrow the network part down. Slow calls are logged sampled, so a
+ * slow cluster doesn't flood the log. Only query requests are logged with their rendered body, every other request
+ * carries documents (users with password hashes, refresh sessions, signing keys) and is logged by endpoint and index.
+ */
+@Slf4j(topic = "elasticsearch.slow-query")
+class InstrumentedElasticsearchTransport implements ElasticsearchTransport {
+
+    private final ElasticsearchTransport delegate;
+    private final MetricsService metricsService;
+    private final long slowQueryThresholdNanos;
+    private final double slowQuerySampleRate;
+    private final int slowQueryMaxChars;
+
+    InstrumentedElasticsearchTransport(
+            ElasticsearchTransport delegate,
+            MetricsService metricsService,
+            long slowQueryThresholdMillis,
+            double slowQuerySampleRate,
+            int slowQueryMaxChars
+    ) {
+        this.delegate = delegate;
+        this.metricsService = metricsService;
+        this.slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryThresholdMillis);
+        this.slowQuerySampleRate = slowQuerySampleRate;
+        this.slowQueryMaxChars = slowQueryMaxChars;
+    }
+
+    @Override
+    public <RequestT, ResponseT, ErrorT> ResponseT performRequest(
+            RequestT request,
+            Endpoint<RequestT, ResponseT, ErrorT> endpoint,
+            TransportOptions options
+    ) throws IOException {
+        long startTime = System.nanoTime();
+        try {
+            ResponseT response = delegate.performRequest(request, endpoint, options);
+            recordResponse(request, endpoint, response, System.nanoTime() - startTime);
+            return response;
+        } catch (IOException | RuntimeException e) {
+            metricsService.recordElasticsearchRequest(endpoint.id(), false, System.nanoTime() - startTime);
+            throw e;
+        }
+    }
+
+    @Override
+    public <RequestT, ResponseT, ErrorT> CompletableFuture<ResponseT> performRequestAsync(
+            RequestT request,
+            Endpoint<RequestT, ResponseT, ErrorT> endpoint,
+            TransportOptions options
+    ) {
+        long startTime = System.nanoTime();
+        return delegate.performRequestAsync(request, endpoint, options)
+                .whenComplete((response, error) -> {
+                    if (error == null) {
+                        recordResponse(request, endpoint, response, System.nanoTime() - startTime);
+                    } else {
+                        metricsService.recordElasticsearchRequest(endpoint.id(), false, System.nanoTime() - startTime);
+                    }
+                });
+    }
+
+    @Override
+    public JsonpMapper jsonpMapper() {
+        return delegate.jsonpMapper();
+    }
+
+    @Override
+    public TransportOptions options() {
+        return delegate.options();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    private void recordResponse(Object request, Endpoint<?, ?, ?> endpoint, Object response, long durationNanos) {
+        metricsService.recordElasticsearchRequest(endpoint.id(), true, durationNanos);
+
+        Long tookMillis = tookMillis(response);
+        if (tookMillis != null) {
+            metricsService.recordElasticsearchTook(endpoint.id(), tookMillis);
+        }
+
+        if (durationNanos >= slowQueryThresholdNanos && ThreadLocalRandom.current().nextDouble() < slowQuerySampleRate) {
+            long durationMillis = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+            if (isQuery(request)) {
+                log.warn("Slow Elasticsearch {} on {}: client {} ms, took {} ms, request: {}",
+                        endpoint.id(), index(request), durationMillis, tookMillis, render((JsonpSerializable) request));
+            } else {
+                log.warn("Slow Elasticsearch {} on {}: client {} ms, took {} ms",
+                        endpoint.id(), index(request), durationMillis, tookMillis);
+            }
+        }
+    }
+
+    /**
+     * Query requests carry search criteria, not documents, so their body is safe to log
+     */
+    private boolean isQuery(Object request) {
+        return request instanceof SearchRequest
+                || request instanceof CountRequest
+                || request instanceof UpdateByQueryRequest
+                || request instanceof DeleteByQueryRequest;
+    }
+
+    private String index(Object request) {
+        return switch (request) {
+            case SearchRequest searchRequest -> String.join(",", searchRequest.index());
+            case CountRequest countRequest -> String.join(",", countRequest.index());
+            case UpdateByQueryRequest updateByQueryRequest -> String.join(",", updateByQueryRequest.index());
+            case DeleteByQueryRequest deleteByQueryRequest -> String.join(",", deleteByQueryRequest.index());
+            case IndexRequest<?> indexRequest -> indexRequest.index();
+            case GetRequest getRequest -> getRequest.index();
+            case MgetRequest mgetRequest -> mgetRequest.index();
+            case UpdateRequest<?, ?> updateRequest -> updateRequest.index();
+            case DeleteRequest deleteRequest -> deleteRequest.index();
+            case BulkRequest bulkRequest -> bulkRequest.index();
+            case null, default -> null;
+        };
+    }
+
+    private Long tookMillis(Object response) {
+        return switch (response) {
+            case SearchResponse<?> searchResponse -> searchResponse.took();
+            case BulkResponse bulkResponse -> bulkResponse.took();
+            case UpdateByQueryResponse updateByQueryResponse -> updateByQueryResponse.took();
+            case DeleteByQueryResponse deleteByQueryResponse -> deleteByQueryResponse.took();
+            case null, default -> null;
+        };
+    }
+
+    private String render(JsonpSerializable serializable) {
+        try {
+            String json = JsonpUtils.toJsonString(serializable, jsonpMapper());
+            return json.length() > slowQueryMaxChars ? json.substring(0, slowQueryMaxChars) + "..." : json;
+        } catch (Exception e) {
+            return "<not renderable: " + e.getMessage() + ">";
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.devtiro.realestate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-route token bucket limits, bound from rate-limit.* in application.yml
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Buckets kept in memory, least valuable ones are evicted beyond this
+    private long maxBuckets = 100_000;
+
+    // Buckets unused for this long are dropped, a fresh bucket is full anyway
+    private Duration bucketIdleTimeout = Duration.ofMinutes(10);
+
+    private List<Route> routes = new ArrayList<>();
+
+    @Data
+    public static class Route {
+
+        private String name;
+
+        // HTTP method, null matches every method
+        private String method;
+
+        // Spring path pattern, e.g. /api/listings/search
+        private String path;
+
+        private long capacity;
+
+        private long refillTokens;
+
+        private Duration refillPeriod = Duration.ofMinutes(1);
+
+        private KeyBy keyBy = KeyBy.IP;
+    }
+
+    public enum KeyBy {
+        // client IP address
+        IP,
+        // authenticated user, falls back to the client IP for anonymous requests
+        USER
+    }
+}
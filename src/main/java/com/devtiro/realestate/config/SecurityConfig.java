@@ -1,9 +1,11 @@
 package com.devtiro.realestate.config;
 
-import com.devtiro.realestate.domain.dto.AttemptInfo;
+import com.devtiro.realestate.security.CustomUserDetailsService;
 import com.devtiro.realestate.security.JwtAuthenticationFilter;
+import com.devtiro.realestate.security.OffloadingPasswordEncoder;
+import com.devtiro.realestate.security.PasswordHashingService;
+import com.devtiro.realestate.security.RateLimitFilter;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -15,8 +17,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -25,7 +25,6 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Configuration
 @EnableWebSecurity
@@ -33,11 +32,10 @@ import java.util.concurrent.ConcurrentHashMap;
 @RequiredArgsConstructor
 public class SecurityConfig {
 
-    @Value("${security.password.bcrypt-strength}")
-    private int passwordBcryptStrength;
-
     private final JwtAuthenticationFilter jwtAuthFilter;
-    private final UserDetailsService userDetailsService;
+    private final RateLimitFilter rateLimitFilter;
+    private final CustomUserDetailsService userDetailsService;
+    private final PasswordHashingService passwordHashingService;
 
 
     @Bean
@@ -46,6 +44,7 @@ public class SecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/.well-known/jwks.json").permitAll()
                         .requestMatchers("/actuator/**").permitAll() // TODO admin role
 
                         .requestMatchers(HttpMethod.POST, "/api/listings").hasRole("AGENT")
@@ -64,26 +63,35 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.PUT, "/api/viewings/*/cancel").hasAnyRole("AGENT","USER")
                         .requestMatchers(HttpMethod.PUT, "/api/viewings/*/status").hasRole("AGENT")
 
+                        .requestMatchers(HttpMethod.GET, "/api/availability").hasRole("AGENT")
+                        .requestMatchers(HttpMethod.PUT, "/api/availability").hasRole("AGENT")
+
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
+
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 )
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
-                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+                // after the JWT filter, so routes can be limited per authenticated user
+                .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class);
 
         return http.build();
     }
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(passwordBcryptStrength);
+        return new OffloadingPasswordEncoder(passwordHashingService);
     }
 
     @Bean
     public AuthenticationManager authenticationManager() throws Exception {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        // Re-hash on login when security.password.bcrypt-strength changed since the hash was made
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         return new ProviderManager(authProvider);
     }
 
@@ -103,10 +111,5 @@ public class SecurityConfig {
         source.registerCorsConfiguration("/**", configuration);
         return source;
     }
-
-    @Bean
-    public ConcurrentHashMap<String, AttemptInfo> attemptsCache() {
-        return new ConcurrentHashMap<>();
-    }
 }
 
@@ -0,0 +1,137 @@
+package com.devtiro.realestate.config;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.util.ReflectionUtils;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Spans below the HTTP server observation Spring MVC already creates per controller call
+ *
+ * Every repository method and every ElasticsearchOperations call gets an observation, so a trace shows which
+ * lookup, scan or save a request spent its time in. Observations are also timers, tagged with the repository
+ * or operations method, which keeps the tag values bounded by code.
+ */
+@Slf4j
+@Configuration
+public class TracingConfig {
+
+    private static final String REPOSITORY_OBSERVATION = "elasticsearch.repository";
+    private static final String OPERATIONS_OBSERVATION = "elasticsearch.operations";
+
+    /**
+     * Static and lazy so the registry isn't created while bean post processors are still being registered
+     */
+    @Bean
+    public static BeanPostProcessor elasticsearchObservationPostProcessor(
+            ObjectProvider<ObservationRegistry> observationRegistry
+    ) {
+        Supplier<ObservationRegistry> registry = () -> observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP);
+
+        return new BeanPostProcessor() {
+
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                // Before afterPropertiesSet, which is where the factory bean creates the repository
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(new ObservingInterceptor(
+                                    REPOSITORY_OBSERVATION,
+                                    repositoryInformation.getRepositoryInterface().getSimpleName(),
+                                    registry
+                            ))
+                    ));
+                }
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof ElasticsearchOperations)) {
+                    return bean;
+                }
+                // Interface based proxy, everything injects ElasticsearchOperations
+                ProxyFactory proxyFactory = new ProxyFactory(bean);
+                proxyFactory.addAdvice(new ObservingInterceptor(OPERATIONS_OBSERVATION, "ElasticsearchOperations", registry));
+                return proxyFactory.getProxy();
+            }
+        };
+    }
+
+    /**
+     * Local exporter for development, finished spans go to the log instead of a collector
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.tracing.log-spans", havingValue = "true")
+    public SpanExporter loggingSpanExporter() {
+        return new SpanExporter() {
+
+            @Override
+            public CompletableResultCode export(Collection<SpanData> spans) {
+                spans.forEach(span -> log.info("Span {} trace={} span={} parent={} duration={}ms",
+                        span.getName(),
+                        span.getTraceId(),
+                        span.getSpanId(),
+                        span.getParentSpanId(),
+                        TimeUnit.NANOSECONDS.toMillis(span.getEndEpochNanos() - span.getStartEpochNanos())));
+                return CompletableResultCode.ofSuccess();
+            }
+
+            @Override
+            public CompletableResultCode flush() {
+                return CompletableResultCode.ofSuccess();
+            }
+
+            @Override
+            public CompletableResultCode shutdown() {
+                return CompletableResultCode.ofSuccess();
+            }
+        };
+    }
+
+    private record ObservingInterceptor(
+            String observationName,
+            String target,
+            Supplier<ObservationRegistry> registry
+    ) implements MethodInterceptor {
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            if (ReflectionUtils.isObjectMethod(invocation.getMethod())) {
+                return invocation.proceed();
+            }
+
+            String method = invocation.getMethod().getName();
+            Observation observation = Observation.createNotStarted(observationName, registry.get())
+                    .contextualName(target + "#" + method)
+                    .lowCardinalityKeyValue("target", target)
+                    .lowCardinalityKeyValue("method", method)
+                    .start();
+            try (Observation.Scope scope = observation.openScope()) {
+                return invocation.proceed();
+            } catch (Throwable e) {
+                observation.error(e);
+                throw e;
+            } finally {
+                observation.stop();
+            }
+        }
+    }
+}
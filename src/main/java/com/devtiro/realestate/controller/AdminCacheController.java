@@ -0,0 +1,49 @@
+package com.devtiro.realestate.controller;
+
+import com.devtiro.realestate.domain.dto.CacheStatsDto;
+import com.devtiro.realestate.services.CacheAdminService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Inspect, warm and clear the application caches, ADMIN only
+ */
+@RestController
+@RequestMapping("/api/admin/caches")
+@RequiredArgsConstructor
+public class AdminCacheController {
+
+    private final CacheAdminService cacheAdminService;
+
+    /**
+     * Configuration and hit ratio of every cache
+     */
+    @GetMapping
+    public ResponseEntity<List<CacheStatsDto>> getCaches() {
+        return ResponseEntity.ok(cacheAdminService.getCaches());
+    }
+
+    @GetMapping("/{name}")
+    public ResponseEntity<CacheStatsDto> getCache(@PathVariable String name) {
+        return ResponseEntity.ok(cacheAdminService.getCache(name));
+    }
+
+    /**
+     * Preload the entries most likely to be read, only caches with a warmer support this
+     */
+    @PostMapping("/{name}/warm")
+    public ResponseEntity<CacheStatsDto> warmCache(@PathVariable String name) {
+        return ResponseEntity.ok(cacheAdminService.warmCache(name));
+    }
+
+    /**
+     * Drop all entries, e.g. after changing data outside of the application
+     */
+    @DeleteMapping("/{name}")
+    public ResponseEntity<CacheStatsDto> clearCache(@PathVariable String name) {
+        return ResponseEntity.ok(cacheAdminService.clearCache(name));
+    }
+}
@@ -0,0 +1,58 @@
+package com.devtiro.realestate.controller;
+
+import com.devtiro.realestate.domain.dto.AuditTermCountDto;
+import com.devtiro.realestate.domain.dto.SecurityAuditEventDto;
+import com.devtiro.realestate.security.SecurityAuditEventType;
+import com.devtiro.realestate.services.SecurityAuditQueryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Incident queries over the security audit events, ADMIN only
+ */
+@RestController
+@RequestMapping("/api/admin/security-audit")
+@RequiredArgsConstructor
+public class AdminSecurityAuditController {
+
+    private final SecurityAuditQueryService securityAuditQueryService;
+
+    /**
+     * IP addresses with the most events, e.g. ?type=LOGIN_FAILURE&sinceMinutes=60
+     */
+    @GetMapping("/top-ips")
+    public ResponseEntity<List<AuditTermCountDto>> getTopIpAddresses(
+            @RequestParam(required = false) SecurityAuditEventType type,
+            @RequestParam(defaultValue = "60") int sinceMinutes,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        return ResponseEntity.ok(securityAuditQueryService.getTopIpAddresses(type, sinceMinutes, size));
+    }
+
+    /**
+     * Most frequent failure reasons, of all failure types unless a type is given
+     */
+    @GetMapping("/failure-reasons")
+    public ResponseEntity<List<AuditTermCountDto>> getFailureReasons(
+            @RequestParam(required = false) SecurityAuditEventType type,
+            @RequestParam(defaultValue = "1440") int sinceMinutes,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        return ResponseEntity.ok(securityAuditQueryService.getFailureReasons(type, sinceMinutes, size));
+    }
+
+    /**
+     * Events of one user, newest first
+     */
+    @GetMapping("/users/{email}/timeline")
+    public ResponseEntity<List<SecurityAuditEventDto>> getUserTimeline(
+            @PathVariable String email,
+            @RequestParam(defaultValue = "10080") int sinceMinutes,
+            @RequestParam(defaultValue = "100") int size
+    ) {
+        return ResponseEntity.ok(securityAuditQueryService.getUserTimeline(email, sinceMinutes, size));
+    }
+}
@@ -0,0 +1,51 @@
+package com.devtiro.realestate.controller;
+
+import com.devtiro.realestate.domain.dto.AgentAvailabilityRequest;
+import com.devtiro.realestate.domain.dto.AgentAvailabilityResponseDto;
+import com.devtiro.realestate.domain.dto.AvailableSlotsResponseDto;
+import com.devtiro.realestate.domain.entities.User;
+import com.devtiro.realestate.services.AgentAvailabilityService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/api/availability")
+@RequiredArgsConstructor
+public class AgentAvailabilityController {
+
+    private final AgentAvailabilityService agentAvailabilityService;
+
+    @GetMapping
+    public ResponseEntity<AgentAvailabilityResponseDto> getMyAvailability(
+            @AuthenticationPrincipal User agent
+    ) {
+        return ResponseEntity.ok(agentAvailabilityService.getAvailability(agent.getId()));
+    }
+
+    @PutMapping
+    public ResponseEntity<AgentAvailabilityResponseDto> updateMyAvailability(
+            @Valid @RequestBody AgentAvailabilityRequest request,
+            @AuthenticationPrincipal User agent
+    ) {
+        return ResponseEntity.ok(agentAvailabilityService.updateAvailability(request, agent));
+    }
+
+    /**
+     * Ready-to-book viewing slots of a listing
+     * GET /api/availability/listings/{propertyListingId}/slots?from=...&to=...
+     */
+    @GetMapping("/listings/{propertyListingId}/slots")
+    public ResponseEntity<AvailableSlotsResponseDto> getAvailableSlots(
+            @PathVariable String propertyListingId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        return ResponseEntity.ok(agentAvailabilityService.getAvailableSlots(propertyListingId, from, to));
+    }
+}
@@ -5,6 +5,7 @@ import com.devtiro.realestate.domain.dto.LoginRequest;
 import com.devtiro.realestate.domain.dto.RefreshTokenRequest;
 import com.devtiro.realestate.domain.dto.RegisterRequest;
 import com.devtiro.realestate.domain.entities.User;
+import com.devtiro.realestate.security.ClientIpResolver;
 import com.devtiro.realestate.services.AuthService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -25,6 +26,7 @@ import org.springframework.web.bind.annotation.RestController;
 public class AuthController {
 
     private final AuthService authService;
+    private final ClientIpResolver clientIpResolver;
 
     /**
      * Register a new user
@@ -33,7 +35,7 @@ public class AuthController {
     @PostMapping("/register")
     public ResponseEntity<AuthResponse> register(@Valid @RequestBody RegisterRequest request,
                                                  HttpServletRequest httpRequest) {
-        String ipAddress = getClientIP(httpRequest);
+        String ipAddress = clientIpResolver.resolve(httpRequest);
         AuthResponse response = authService.register(request, ipAddress);
         return ResponseEntity.ok(response);
     }
@@ -45,7 +47,7 @@ public class AuthController {
     @PostMapping("/login")
     public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request,
                                               HttpServletRequest httpRequest) {
-        String ipAddress = getClientIP(httpRequest);
+        String ipAddress = clientIpResolver.resolve(httpRequest);
         AuthResponse response = authService.login(request, ipAddress);
         return ResponseEntity.ok(response);
     }
@@ -57,7 +59,7 @@ public class AuthController {
     @PostMapping("/refresh")
     public ResponseEntity<AuthResponse> refreshToken(@Valid @RequestBody RefreshTokenRequest request,
                                                      HttpServletRequest httpRequest) {
-        String ipAddress = getClientIP(httpRequest);
+        String ipAddress = clientIpResolver.resolve(httpRequest);
         AuthResponse response = authService.refreshToken(request.getRefreshToken(), ipAddress);
         return ResponseEntity.ok(response);
     }
@@ -70,21 +72,16 @@ public class AuthController {
     @PostMapping("/logout")
     public ResponseEntity<Void> logout(@AuthenticationPrincipal User user,
                                        HttpServletRequest httpRequest) {
-        String ipAddress = getClientIP(httpRequest);
-        authService.logout(user.getEmail(), ipAddress);
+        String ipAddress = clientIpResolver.resolve(httpRequest);
+        authService.logout(user.getEmail(), getBearerToken(httpRequest), ipAddress);
         return ResponseEntity.ok().build();
     }
 
-    /**
-     * Extract client IP address from request
-     * Handles X-Forwarded-For header for proxied requests
-     */
-    private String getClientIP(HttpServletRequest request) {
-        String xForwardedForHeader = request.getHeader("X-Forwarded-For");
-        if (xForwardedForHeader == null || xForwardedForHeader.isEmpty()) {
-            return request.getRemoteAddr();
+    private String getBearerToken(HttpServletRequest request) {
+        String authorizationHeader = request.getHeader("Authorization");
+        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
+            return authorizationHeader.substring(7);
         }
-        // X-Forwarded-For can contain multiple IPs, first one is the client
-        return xForwardedForHeader.split(",")[0].trim();
+        return null;
     }
 }
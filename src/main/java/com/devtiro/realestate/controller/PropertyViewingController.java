@@ -62,6 +62,22 @@ public class PropertyViewingController {
         return ResponseEntity.ok(propertyViewingService.confirmViewing(request, agent));
     }
 
+    @PatchMapping("/agent/bulk-confirm")
+    public ResponseEntity<List<PropertyViewingResponseDto>> bulkConfirmViewings(
+            @Valid @RequestBody BulkViewingConfirmRequest request,
+            @AuthenticationPrincipal User agent
+    ) {
+        return ResponseEntity.ok(propertyViewingService.bulkConfirmViewings(request, agent));
+    }
+
+    @PatchMapping("/agent/bulk-cancel")
+    public ResponseEntity<List<PropertyViewingResponseDto>> bulkCancelViewings(
+            @Valid @RequestBody BulkViewingCancelRequest request,
+            @AuthenticationPrincipal User agent
+    ) {
+        return ResponseEntity.ok(propertyViewingService.bulkCancelViewings(request, agent));
+    }
+
 
     @PutMapping("/{viewingId}/reschedule")
     public ResponseEntity<PropertyViewingResponseDto> rescheduleViewing(
@@ -0,0 +1,28 @@
+package com.devtiro.realestate.domain.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AgentAvailabilityRequest {
+
+    @Valid
+    @NotNull(message = "Working hours are required")
+    @Size(max = 50, message = "At most 50 working hour rules are allowed")
+    private List<WorkingHoursDto> workingHours = new ArrayList<>();
+
+    @Valid
+    @Size(max = 200, message = "At most 200 blackout periods are allowed")
+    private List<BlackoutPeriodDto> blackouts = new ArrayList<>();
+}
@@ -0,0 +1,21 @@
+package com.devtiro.realestate.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AgentAvailabilityResponseDto {
+    private String agentId;
+    private List<WorkingHoursDto> workingHours = new ArrayList<>();
+    private List<BlackoutPeriodDto> blackouts = new ArrayList<>();
+    private LocalDateTime updatedDate;
+}
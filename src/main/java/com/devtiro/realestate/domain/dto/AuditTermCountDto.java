@@ -1,6 +1,5 @@
 package com.devtiro.realestate.domain.dto;
 
-
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -10,7 +9,7 @@ import lombok.NoArgsConstructor;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-public class AttemptInfo {
-    private int attempts;
-    private Long lockedTime;
+public class AuditTermCountDto {
+    private String key;
+    private long count;
 }
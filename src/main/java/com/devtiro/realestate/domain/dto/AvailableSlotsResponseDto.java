@@ -0,0 +1,22 @@
+package com.devtiro.realestate.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailableSlotsResponseDto {
+    private String propertyListingId;
+    private String agentId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private int slotDurationInMinutes;
+    private List<ViewingSlotDto> slots;
+}
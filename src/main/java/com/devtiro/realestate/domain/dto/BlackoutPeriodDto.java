@@ -0,0 +1,26 @@
+package com.devtiro.realestate.domain.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BlackoutPeriodDto {
+
+    @NotNull(message = "Blackout start is required")
+    private LocalDateTime startDateTime;
+
+    @NotNull(message = "Blackout end is required")
+    private LocalDateTime endDateTime;
+
+    @Size(max = 500, message = "Reason must not exceed 500 characters")
+    private String reason;
+}
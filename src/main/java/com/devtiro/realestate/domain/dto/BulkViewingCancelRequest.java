@@ -0,0 +1,26 @@
+package com.devtiro.realestate.domain.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkViewingCancelRequest {
+
+    @NotEmpty(message = "At least one viewing ID is required")
+    @Size(max = 100, message = "At most 100 viewings can be cancelled at once")
+    private List<@NotBlank(message = "Viewing ID must not be blank") String> propertyViewingIds;
+
+    @NotBlank(message = "Cancellation reason is required")
+    @Size(max = 500, message = "Reason must not exceed 500 characters")
+    private String reason;
+}
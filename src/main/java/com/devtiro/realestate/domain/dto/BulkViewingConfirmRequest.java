@@ -0,0 +1,25 @@
+package com.devtiro.realestate.domain.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkViewingConfirmRequest {
+
+    @NotEmpty(message = "At least one viewing ID is required")
+    @Size(max = 100, message = "At most 100 viewings can be confirmed at once")
+    private List<@NotBlank(message = "Viewing ID must not be blank") String> propertyViewingIds;
+
+    @Size(max = 1000, message = "Notes must not exceed 1000 characters")
+    private String notes;
+}
@@ -0,0 +1,31 @@
+package com.devtiro.realestate.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsDto {
+    private String name;
+
+    // Configuration, expiries as ISO-8601 durations, null when off
+    private long maximumSize;
+    private String expireAfterWrite;
+    private String expireAfterAccess;
+    private String refreshAfterWrite;
+    private boolean warmable;
+
+    // Stats since startup
+    private long estimatedSize;
+    private long hitCount;
+    private long missCount;
+    private double hitRatio;
+    private long evictionCount;
+    private long loadSuccessCount;
+    private long loadFailureCount;
+    private double averageLoadPenaltyMillis;
+}
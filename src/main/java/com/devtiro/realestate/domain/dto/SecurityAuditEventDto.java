@@ -0,0 +1,21 @@
+package com.devtiro.realestate.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SecurityAuditEventDto {
+    private Instant timestamp;
+    private String type;
+    private String user;
+    private String ipAddress;
+    private Map<String, String> details;
+}
@@ -0,0 +1,17 @@
+package com.devtiro.realestate.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ViewingSlotDto {
+    private LocalDateTime startDateTime;
+    private LocalDateTime endDateTime;
+}
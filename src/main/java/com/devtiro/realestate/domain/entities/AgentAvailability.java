@@ -0,0 +1,31 @@
+package com.devtiro.realestate.domain.entities;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Viewing availability rules of an agent, the document id is the agent id
+ */
+@EqualsAndHashCode(callSuper = true)
+@Document(indexName = "agent_availability")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AgentAvailability extends Auditing {
+
+    @Id
+    private String id;
+
+    @Field(type = FieldType.Nested)
+    private List<WorkingHours> workingHours = new ArrayList<>();
+
+    @Field(type = FieldType.Nested)
+    private List<BlackoutPeriod> blackouts = new ArrayList<>();
+}
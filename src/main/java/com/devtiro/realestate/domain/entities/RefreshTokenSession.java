@@ -0,0 +1,53 @@
+package com.devtiro.realestate.domain.entities;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.DateFormat;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.core.query.SeqNoPrimaryTerm;
+
+import java.time.LocalDateTime;
+
+/**
+ * One issued refresh token, the document id is the SHA-256 of the token
+ *
+ * All tokens of one login (device) share a familyId. Every refresh marks the presented token ROTATED
+ * and adds a new ACTIVE one to the family, presenting a ROTATED token again revokes the whole family.
+ */
+@EqualsAndHashCode(callSuper = true)
+@Document(indexName = "refresh_token_sessions")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshTokenSession extends Auditing {
+
+    @Id
+    private String id;
+
+    @Field(type = FieldType.Keyword)
+    private String familyId;
+
+    @Field(type = FieldType.Keyword)
+    private String userId;
+
+    @Field(type = FieldType.Keyword)
+    private String email;
+
+    @Field(type = FieldType.Keyword)
+    private RefreshTokenStatus status;
+
+    @Field(type = FieldType.Keyword)
+    private String ipAddress;
+
+    @Field(type = FieldType.Date, format = DateFormat.date_hour_minute_second_millis)
+    private LocalDateTime expiresAt;
+
+    @Field(type = FieldType.Date, format = DateFormat.date_hour_minute_second_millis)
+    private LocalDateTime rotatedAt;
+
+    // Makes rotation a compare-and-set, two concurrent refreshes with the same token can't both succeed
+    private SeqNoPrimaryTerm seqNoPrimaryTerm;
+}
@@ -0,0 +1,7 @@
+package com.devtiro.realestate.domain.entities;
+
+public enum RefreshTokenStatus {
+    ACTIVE,
+    ROTATED,
+    REVOKED
+}
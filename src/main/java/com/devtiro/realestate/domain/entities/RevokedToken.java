@@ -0,0 +1,35 @@
+package com.devtiro.realestate.domain.entities;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.DateFormat;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Access token revoked before its expiration, the document id is the token's jti
+ */
+@EqualsAndHashCode(callSuper = true)
+@Document(indexName = "revoked_tokens")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedToken extends Auditing {
+
+    @Id
+    private String id;
+
+    @Field(type = FieldType.Keyword)
+    private String subject;
+
+    @Field(type = FieldType.Keyword)
+    private String reason;
+
+    // Revocation entries are only needed until the token would have expired anyway
+    @Field(type = FieldType.Date, format = DateFormat.date_hour_minute_second_millis)
+    private LocalDateTime expiresAt;
+}
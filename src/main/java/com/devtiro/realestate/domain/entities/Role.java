@@ -2,5 +2,6 @@ package com.devtiro.realestate.domain.entities;
 
 public enum Role {
     USER,
-    AGENT
+    AGENT,
+    ADMIN
 }
@@ -0,0 +1,50 @@
+package com.devtiro.realestate.domain.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.DateFormat;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Security audit event as stored in the daily {@code security_audit-yyyy.MM.dd} indices
+ *
+ * Not audited itself and without repository, the index name depends on the event date. The mapping
+ * is applied to new daily indices by an index template.
+ */
+@Document(indexName = "security_audit", createIndex = false)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SecurityAuditRecord {
+
+    @Id
+    private String id;
+
+    @Field(type = FieldType.Date, format = DateFormat.epoch_millis)
+    private Instant timestamp;
+
+    @Field(type = FieldType.Keyword)
+    private String type;
+
+    @Field(type = FieldType.Keyword)
+    private String user;
+
+    @Field(type = FieldType.Keyword)
+    private String ipAddress;
+
+    // Copied out of the details, failure reasons are aggregated on
+    @Field(type = FieldType.Keyword)
+    private String reason;
+
+    @Field(type = FieldType.Flattened)
+    private Map<String, String> details;
+}
@@ -0,0 +1,48 @@
+package com.devtiro.realestate.domain.entities;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.DateFormat;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Asymmetric JWT signing key, the document id is the key id (kid) put in the token header
+ *
+ * A key signs new tokens until retiresAt and is published for verification until expiresAt,
+ * i.e. until the last token it signed has expired.
+ */
+@EqualsAndHashCode(callSuper = true)
+@Document(indexName = "jwt_signing_keys")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SigningKey extends Auditing {
+
+    @Id
+    private String id;
+
+    @Field(type = FieldType.Keyword)
+    private String algorithm;
+
+    // X.509 encoded public key, Base64
+    @Field(type = FieldType.Keyword, index = false)
+    private String publicKey;
+
+    // PKCS#8 encoded private key, AES-GCM encrypted with a key derived from jwt.secret, Base64
+    @Field(type = FieldType.Keyword, index = false)
+    private String encryptedPrivateKey;
+
+    @Field(type = FieldType.Date, format = DateFormat.date_hour_minute_second_millis)
+    private LocalDateTime activatedAt;
+
+    @Field(type = FieldType.Date, format = DateFormat.date_hour_minute_second_millis)
+    private LocalDateTime retiresAt;
+
+    @Field(type = FieldType.Date, format = DateFormat.date_hour_minute_second_millis)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,28 @@
+package com.devtiro.realestate.domain.entities;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+
+/**
+ * Reservation of a unique user attribute, e.g. {@code email:<sha256>} or {@code username:<sha256>}
+ *
+ * The document id is derived from the value, so creating it with op_type=create fails with a conflict
+ * when the value is already taken, regardless of index refreshes.
+ */
+@EqualsAndHashCode(callSuper = true)
+@Document(indexName = "user_unique_keys")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserUniqueKey extends Auditing {
+
+    @Id
+    private String id;
+
+    @Field(type = FieldType.Keyword)
+    private String userId;
+}
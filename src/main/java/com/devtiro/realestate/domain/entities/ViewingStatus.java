@@ -5,5 +5,7 @@ public enum ViewingStatus {
     CONFIRMED,
     COMPLETED,
     CANCELLED,
-    RESCHEDULED
+    RESCHEDULED,
+    EXPIRED,
+    NO_SHOW
 }
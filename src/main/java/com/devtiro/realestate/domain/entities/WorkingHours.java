@@ -0,0 +1,28 @@
+package com.devtiro.realestate.domain.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.elasticsearch.annotations.DateFormat;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkingHours {
+
+    @Field(type = FieldType.Keyword)
+    private DayOfWeek dayOfWeek;
+
+    @Field(type = FieldType.Date, format = DateFormat.hour_minute)
+    private LocalTime startTime;
+
+    @Field(type = FieldType.Date, format = DateFormat.hour_minute)
+    private LocalTime endTime;
+}
@@ -0,0 +1,29 @@
+package com.devtiro.realestate.events;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+/**
+ * Transport for a single node deployment, there are no other nodes to notify
+ *
+ * Changes made on this node are already handled in-process by {@link UserChangePublisher}.
+ * Replace it with a broker-backed {@link UserChangeTransport} before running several nodes.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.user-events.transport", havingValue = "local", matchIfMissing = true)
+public class LocalUserChangeTransport implements UserChangeTransport {
+
+    @Override
+    public void send(UserChangedEvent event) {
+        log.debug("User change not sent to other nodes, local transport: {} {}", event.type(), event.email());
+    }
+
+    @Override
+    public void subscribe(Consumer<UserChangedEvent> listener) {
+        // Nothing is ever received from other nodes
+    }
+}
@@ -0,0 +1,61 @@
+package com.devtiro.realestate.events;
+
+import com.devtiro.realestate.security.SubjectRevocationRegistry;
+import com.devtiro.realestate.security.VerifiedTokenCache;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the cached user principals of this node consistent with the stored users
+ *
+ * Handles changes made on this node as application events and changes made on other nodes
+ * through the {@link UserChangeTransport}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserCacheInvalidator {
+
+    private final CacheManager cacheManager;
+    private final UserChangePublisher userChangePublisher;
+    private final UserChangeTransport userChangeTransport;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final SubjectRevocationRegistry subjectRevocationRegistry;
+
+    @PostConstruct
+    void subscribe() {
+        userChangeTransport.subscribe(event -> {
+            if (!userChangePublisher.getNodeId().equals(event.originNodeId())) {
+                invalidate(event);
+            }
+        });
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        invalidate(event);
+    }
+
+    private void invalidate(UserChangedEvent event) {
+        Cache usersByEmail = cacheManager.getCache("usersByEmail");
+        if (usersByEmail != null) {
+            usersByEmail.evict(event.email());
+            if (event.previousEmail() != null && !event.previousEmail().equals(event.email())) {
+                usersByEmail.evict(event.previousEmail());
+            }
+        }
+
+        // Tokens carry the role and, with stateless principals, the account flags, they must not outlive the change
+        if (event.securityChanged()) {
+            subjectRevocationRegistry.revoke(event.previousEmail());
+            verifiedTokenCache.invalidateSubject(event.previousEmail());
+        }
+
+        log.debug("Invalidated cached user after {} of {}", event.type(), event.email());
+    }
+}
@@ -0,0 +1,113 @@
+package com.devtiro.realestate.events;
+
+import com.devtiro.realestate.domain.entities.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.MultiGetItem;
+import org.springframework.data.elasticsearch.core.event.AfterSaveCallback;
+import org.springframework.data.elasticsearch.core.event.BeforeConvertCallback;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilterBuilder;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Publishes a {@link UserChangedEvent} for every saved user, in-process and to the other nodes
+ *
+ * Hooks into the Elasticsearch save itself, so no caller of UserRepository.save can forget to invalidate.
+ * The stored role, flags and email are read before an update to tell whether a security relevant field changed,
+ * a real-time multi get limited to those fields instead of the whole document.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserChangePublisher implements BeforeConvertCallback<User>, AfterSaveCallback<User>, Ordered {
+
+    private static final String[] SECURITY_FIELDS = {"role", "enabled", "accountNonLocked", "email"};
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final UserChangeTransport userChangeTransport;
+    private final ElasticsearchOperations elasticsearchOperations;
+
+    @Getter
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // Stored state per entity being saved, keyed by identity as both callbacks get the same instance. saveAll converts
+    // all entities before saving them, weak keys drop the entry of a failed save once its entity is garbage collected
+    private final Cache<User, User> previousUsers = Caffeine.newBuilder()
+            .weakKeys()
+            .build();
+
+    /**
+     * Run before the auditing callback, which fills the created date that tells new users apart
+     */
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    public User onBeforeConvert(User user, IndexCoordinates index) {
+        User previous = user.isNew() ? null : findSecurityFields(user.getId(), index);
+        if (previous != null) {
+            previousUsers.put(user, previous);
+        } else {
+            previousUsers.invalidate(user);
+        }
+        return user;
+    }
+
+    @Override
+    public User onAfterSave(User user, IndexCoordinates index) {
+        User previous = previousUsers.asMap().remove(user);
+
+        UserChangedEvent event = previous == null
+                ? new UserChangedEvent(nodeId, UserChangedEvent.Type.CREATED, user.getId(), user.getEmail(), user.getEmail(), false)
+                : new UserChangedEvent(nodeId, UserChangedEvent.Type.UPDATED, user.getId(), user.getEmail(), previous.getEmail(), isSecurityChange(previous, user));
+        publish(event);
+        return user;
+    }
+
+    /**
+     * Deletes don't go through the save callbacks, callers deleting a user publish the change themselves
+     */
+    public void publishDeleted(User user) {
+        publish(new UserChangedEvent(nodeId, UserChangedEvent.Type.DELETED, user.getId(), user.getEmail(), user.getEmail(), true));
+    }
+
+    private void publish(UserChangedEvent event) {
+        applicationEventPublisher.publishEvent(event);
+        try {
+            userChangeTransport.send(event);
+        } catch (Exception e) {
+            // Other nodes fall back to the cache TTL for this change
+            log.error("Failed to send user change to other nodes: {} {}", event.type(), event.email(), e);
+        }
+    }
+
+    private User findSecurityFields(String id, IndexCoordinates index) {
+        NativeQuery query = NativeQuery.builder()
+                .withIds(id)
+                .withSourceFilter(new FetchSourceFilterBuilder().withIncludes(SECURITY_FIELDS).build())
+                .build();
+        List<MultiGetItem<User>> items = elasticsearchOperations.multiGet(query, User.class, index);
+        return items.isEmpty() || !items.getFirst().hasItem() ? null : items.getFirst().getItem();
+    }
+
+    private boolean isSecurityChange(User previous, User current) {
+        return previous.getRole() != current.getRole()
+                || previous.isEnabled() != current.isEnabled()
+                || previous.isAccountNonLocked() != current.isAccountNonLocked()
+                || !Objects.equals(previous.getEmail(), current.getEmail());
+    }
+}
@@ -0,0 +1,22 @@
+package com.devtiro.realestate.events;
+
+import java.util.function.Consumer;
+
+/**
+ * Delivers user changes to the other nodes of the cluster
+ *
+ * Implementations wrap a broker such as Redis pub/sub or Kafka. Events sent by a node may be delivered
+ * back to it, receivers ignore their own events.
+ */
+public interface UserChangeTransport {
+
+    /**
+     * Send a change made on this node to the other nodes
+     */
+    void send(UserChangedEvent event);
+
+    /**
+     * Register a listener for changes received from other nodes
+     */
+    void subscribe(Consumer<UserChangedEvent> listener);
+}
@@ -0,0 +1,27 @@
+package com.devtiro.realestate.events;
+
+/**
+ * A user document was created, updated or deleted
+ *
+ * Only carries what nodes need to invalidate their state, never the user itself, so it can be sent
+ * to other nodes as is.
+ *
+ * @param originNodeId node the change was made on
+ * @param previousEmail email before the change, differs from email when the email was changed
+ * @param securityChanged role, enabled or locked flag changed, or the user was deleted
+ */
+public record UserChangedEvent(
+        String originNodeId,
+        Type type,
+        String userId,
+        String email,
+        String previousEmail,
+        boolean securityChanged
+) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+}
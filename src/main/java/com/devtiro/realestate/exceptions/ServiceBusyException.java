@@ -0,0 +1,7 @@
+package com.devtiro.realestate.exceptions;
+
+public class ServiceBusyException extends RuntimeException {
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
@@ -1,10 +1,24 @@
 package com.devtiro.realestate.exceptions;
 
+import lombok.Getter;
+
 /**
  * Exception thrown when a user tries to register with an email/username that already exists
  */
+@Getter
 public class UserAlreadyExistsException extends RuntimeException {
+
+    /**
+     * The attribute that is already taken, "email" or "username"
+     */
+    private final String field;
+
     public UserAlreadyExistsException(String message) {
+        this(message, null);
+    }
+
+    public UserAlreadyExistsException(String message, String field) {
         super(message);
+        this.field = field;
     }
 }
@@ -0,0 +1,26 @@
+package com.devtiro.realestate.mappers;
+
+import com.devtiro.realestate.domain.dto.AgentAvailabilityResponseDto;
+import com.devtiro.realestate.domain.dto.BlackoutPeriodDto;
+import com.devtiro.realestate.domain.dto.WorkingHoursDto;
+import com.devtiro.realestate.domain.entities.AgentAvailability;
+import com.devtiro.realestate.domain.entities.BlackoutPeriod;
+import com.devtiro.realestate.domain.entities.WorkingHours;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.ReportingPolicy;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface AgentAvailabilityMapper {
+
+    @Mapping(target = "agentId", source = "id")
+    @Mapping(target = "updatedDate", source = "lastModifiedDate")
+    AgentAvailabilityResponseDto toAgentAvailabilityResponseDto(AgentAvailability agentAvailability);
+
+    List<WorkingHours> toWorkingHours(List<WorkingHoursDto> workingHours);
+
+    List<BlackoutPeriod> toBlackoutPeriods(List<BlackoutPeriodDto> blackouts);
+
+}
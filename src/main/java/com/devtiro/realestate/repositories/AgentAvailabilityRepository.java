@@ -0,0 +1,9 @@
+package com.devtiro.realestate.repositories;
+
+import com.devtiro.realestate.domain.entities.AgentAvailability;
+import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AgentAvailabilityRepository extends ElasticsearchRepository<AgentAvailability, String> {
+}
@@ -1,6 +1,7 @@
 package com.devtiro.realestate.repositories;
 
 import com.devtiro.realestate.domain.entities.PropertyListing;
+import com.devtiro.realestate.domain.entities.PropertyStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
@@ -12,4 +13,6 @@ public interface PropertyListingRepository extends ElasticsearchRepository<Prope
     Page<PropertyListing> findAll(Pageable pageable);
 
     Page<PropertyListing> findAllByAgentId(String agentId, Pageable pageable);
+
+    Page<PropertyListing> findAllByStatus(PropertyStatus status, Pageable pageable);
 }
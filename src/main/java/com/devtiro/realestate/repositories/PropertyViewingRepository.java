@@ -5,6 +5,8 @@ import com.devtiro.realestate.domain.entities.ViewingStatus;
 import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,4 +25,12 @@ public interface PropertyViewingRepository extends ElasticsearchRepository<Prope
 
     List<PropertyViewing> findAllByPropertyListingId(String propertyListingId);
 
+    List<PropertyViewing> findAllByPropertyListingIdAndStatusInAndScheduledDateTimeBetween(
+            String propertyListingId, Collection<ViewingStatus> statuses, LocalDateTime from, LocalDateTime to);
+
+    List<PropertyViewing> findAllByAgentIdAndStatusInAndScheduledDateTimeBetweenOrderByScheduledDateTimeAsc(
+            String agentId, Collection<ViewingStatus> statuses, LocalDateTime from, LocalDateTime to);
+
+    List<PropertyViewing> findAllByStatusAndScheduledDateTimeBetween(ViewingStatus status, LocalDateTime from, LocalDateTime to);
+
 }
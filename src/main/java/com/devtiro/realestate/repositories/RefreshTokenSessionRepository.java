@@ -0,0 +1,17 @@
+package com.devtiro.realestate.repositories;
+
+import com.devtiro.realestate.domain.entities.RefreshTokenSession;
+import com.devtiro.realestate.domain.entities.RefreshTokenStatus;
+import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RefreshTokenSessionRepository extends ElasticsearchRepository<RefreshTokenSession, String> {
+
+    List<RefreshTokenSession> findAllByFamilyIdAndStatus(String familyId, RefreshTokenStatus status);
+
+    void deleteAllByExpiresAtBefore(LocalDateTime dateTime);
+}
@@ -0,0 +1,22 @@
+package com.devtiro.realestate.repositories;
+
+import com.devtiro.realestate.domain.entities.RevokedToken;
+import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+@Repository
+public interface RevokedTokenRepository extends ElasticsearchRepository<RevokedToken, String> {
+
+    // Streams are backed by a scroll, so large revocation lists are not loaded in one response
+    Stream<RevokedToken> streamAllByExpiresAtAfter(LocalDateTime dateTime);
+
+    // Revocations since the last sync, by the audited creation date
+    Stream<RevokedToken> streamAllByCreatedDateAfter(LocalDateTime dateTime);
+
+    long countByExpiresAtAfter(LocalDateTime dateTime);
+
+    void deleteAllByExpiresAtBefore(LocalDateTime dateTime);
+}
@@ -0,0 +1,16 @@
+package com.devtiro.realestate.repositories;
+
+import com.devtiro.realestate.domain.entities.SigningKey;
+import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SigningKeyRepository extends ElasticsearchRepository<SigningKey, String> {
+
+    List<SigningKey> findAllByExpiresAtAfter(LocalDateTime dateTime);
+
+    void deleteAllByExpiresAtBefore(LocalDateTime dateTime);
+}
@@ -0,0 +1,9 @@
+package com.devtiro.realestate.repositories;
+
+import com.devtiro.realestate.domain.entities.UserUniqueKey;
+import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserUniqueKeyRepository extends ElasticsearchRepository<UserUniqueKey, String> {
+}
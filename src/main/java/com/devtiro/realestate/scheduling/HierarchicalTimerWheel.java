@@ -0,0 +1,178 @@
+package com.devtiro.realestate.scheduling;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timer wheel keyed by an identifier
+ *
+ * Level 0 has one slot per tick, every further level has slots that are wheelSize times wider.
+ * Timers far in the future sit in a coarse slot and cascade down to finer levels as time passes.
+ * - schedule / cancel are O(1)
+ * - advancing one tick touches only the current slot (plus the amortised cascade),
+ *   so the per-tick cost does not depend on the number of pending timers
+ *
+ * All operations synchronize on the wheel instance.
+ */
+public class HierarchicalTimerWheel<K, V> {
+
+    private static final int DUE = -1;
+    private static final int OVERFLOW = -2;
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final int levels;
+    private final long[] slotSpans; // ticks covered by one slot on each level
+    private final List<Map<K, Timer<K, V>>> slots;
+    private final Map<K, Timer<K, V>> due = new LinkedHashMap<>();
+    private final Map<K, Timer<K, V>> overflow = new HashMap<>();
+    private final Map<K, Timer<K, V>> timers = new HashMap<>();
+
+    private long currentTick;
+
+    public HierarchicalTimerWheel(long tickMillis, int wheelSize, int levels, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2 || levels < 1) {
+            throw new IllegalArgumentException("Invalid timer wheel dimensions");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.levels = levels;
+        this.slotSpans = new long[levels];
+        this.slotSpans[0] = 1;
+        for (int level = 1; level < levels; level++) {
+            this.slotSpans[level] = Math.multiplyExact(slotSpans[level - 1], wheelSize);
+        }
+        this.slots = new ArrayList<>(levels * wheelSize);
+        for (int i = 0; i < levels * wheelSize; i++) {
+            this.slots.add(new LinkedHashMap<>());
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Schedule (or re-schedule) the timer for the given key
+     * Deadlines in the past fire on the next advance
+     */
+    public synchronized void schedule(K key, long deadlineMillis, V value) {
+        cancel(key);
+        var timer = new Timer<>(key, value, Math.ceilDiv(deadlineMillis, tickMillis));
+        timers.put(key, timer);
+        place(timer);
+    }
+
+    /**
+     * Cancel the timer for the given key
+     *
+     * @return true if a pending timer was removed
+     */
+    public synchronized boolean cancel(K key) {
+        Timer<K, V> timer = timers.remove(key);
+        if (timer == null) {
+            return false;
+        }
+        bucketOf(timer.slotIndex).remove(key);
+        return true;
+    }
+
+    public synchronized boolean contains(K key) {
+        return timers.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return timers.size();
+    }
+
+    /**
+     * Move the wheel forward to the given time
+     *
+     * @return values of all timers that expired, in deadline order
+     */
+    public synchronized List<V> advance(long nowMillis) {
+        List<V> expired = new ArrayList<>();
+        expire(due, expired);
+
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+
+            if (currentTick % (slotSpans[levels - 1] * wheelSize) == 0) {
+                cascade(overflow);
+            }
+            // Cascade from the coarsest level down, so timers can fall through several levels in one tick
+            for (int level = levels - 1; level > 0; level--) {
+                if (currentTick % slotSpans[level] == 0) {
+                    int slot = (int) ((currentTick / slotSpans[level]) % wheelSize);
+                    cascade(slots.get(level * wheelSize + slot));
+                }
+            }
+
+            expire(slots.get((int) (currentTick % wheelSize)), expired);
+            expire(due, expired);
+        }
+        return expired;
+    }
+
+    private void place(Timer<K, V> timer) {
+        long deadline = timer.deadlineTick;
+        if (deadline <= currentTick) {
+            timer.slotIndex = DUE;
+            due.put(timer.key, timer);
+            return;
+        }
+        for (int level = 0; level < levels; level++) {
+            long levelSpan = slotSpans[level] * wheelSize;
+            if (deadline / levelSpan == currentTick / levelSpan) {
+                int slot = (int) ((deadline / slotSpans[level]) % wheelSize);
+                timer.slotIndex = level * wheelSize + slot;
+                slots.get(timer.slotIndex).put(timer.key, timer);
+                return;
+            }
+        }
+        timer.slotIndex = OVERFLOW;
+        overflow.put(timer.key, timer);
+    }
+
+    private void cascade(Map<K, Timer<K, V>> bucket) {
+        if (bucket.isEmpty()) {
+            return;
+        }
+        List<Timer<K, V>> pending = new ArrayList<>(bucket.values());
+        bucket.clear();
+        pending.forEach(this::place);
+    }
+
+    private void expire(Map<K, Timer<K, V>> bucket, List<V> expired) {
+        if (bucket.isEmpty()) {
+            return;
+        }
+        for (Timer<K, V> timer : bucket.values()) {
+            timers.remove(timer.key);
+            expired.add(timer.value);
+        }
+        bucket.clear();
+    }
+
+    private Map<K, Timer<K, V>> bucketOf(int slotIndex) {
+        return switch (slotIndex) {
+            case DUE -> due;
+            case OVERFLOW -> overflow;
+            default -> slots.get(slotIndex);
+        };
+    }
+
+    private static final class Timer<K, V> {
+        private final K key;
+        private final V value;
+        private final long deadlineTick;
+        private int slotIndex;
+
+        private Timer(K key, V value, long deadlineTick) {
+            this.key = key;
+            this.value = value;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.devtiro.realestate.scheduling;
+
+import com.devtiro.realestate.domain.entities.PropertyListing;
+import com.devtiro.realestate.domain.entities.PropertyViewing;
+import com.devtiro.realestate.security.MetricsService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.ScriptType;
+import org.springframework.data.elasticsearch.core.query.ByQueryResponse;
+import org.springframework.data.elasticsearch.core.query.Criteria;
+import org.springframework.data.elasticsearch.core.query.CriteriaQuery;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the listing snapshot copied into every PropertyViewing (title, address, agent email) up to date
+ *
+ * updatePropertyListing enqueues the new snapshot when one of the copied fields changed.
+ * Rapid successive edits of the same listing are coalesced into a single propagation, which is a
+ * throttled _update_by_query on propertyListingId - viewing reads stay join-free.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ListingSnapshotPropagator {
+
+    private static final String SNAPSHOT_SCRIPT =
+            "if (ctx._source.propertyTitle == params.propertyTitle " +
+            "&& ctx._source.propertyAddress == params.propertyAddress " +
+            "&& ctx._source.agentEmail == params.agentEmail) { ctx.op = 'noop'; } " +
+            "else { " +
+            "ctx._source.propertyTitle = params.propertyTitle; " +
+            "ctx._source.propertyAddress = params.propertyAddress; " +
+            "ctx._source.agentEmail = params.agentEmail; }";
+
+    @Value("${viewing.snapshot-propagation.coalesce-window-seconds}")
+    private long coalesceWindowSeconds;
+
+    @Value("${viewing.snapshot-propagation.requests-per-second}")
+    private float requestsPerSecond;
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final MetricsService metricsService;
+
+    // listingId -> latest snapshot waiting to be propagated
+    private final ConcurrentHashMap<String, PendingSnapshot> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Address format stored on viewings
+     */
+    public static String formatPropertyAddress(PropertyListing listing) {
+        return listing.getStreet() + ", " + listing.getCity() + ", " + listing.getState();
+    }
+
+    public ListingSnapshot snapshotOf(PropertyListing listing) {
+        return new ListingSnapshot(listing.getTitle(), formatPropertyAddress(listing), listing.getAgentEmail());
+    }
+
+    /**
+     * Enqueue propagation if the fields copied into viewings changed
+     */
+    public void propagateIfChanged(ListingSnapshot previous, PropertyListing updatedListing) {
+        ListingSnapshot current = snapshotOf(updatedListing);
+        if (current.equals(previous)) {
+            return;
+        }
+        // Keep the time of the first pending edit, so a stream of edits cannot postpone propagation forever
+        pending.merge(
+                updatedListing.getId(),
+                new PendingSnapshot(current, System.nanoTime()),
+                (existing, latest) -> new PendingSnapshot(latest.snapshot(), existing.enqueuedAtNanos())
+        );
+    }
+
+    @Scheduled(fixedDelayString = "${viewing.snapshot-propagation.drain-interval-seconds}", timeUnit = TimeUnit.SECONDS)
+    public void drain() {
+        long coalesceWindowNanos = TimeUnit.SECONDS.toNanos(coalesceWindowSeconds);
+        long now = System.nanoTime();
+
+        for (var entry : pending.entrySet()) {
+            if (now - entry.getValue().enqueuedAtNanos() < coalesceWindowNanos) {
+                continue;
+            }
+            // Only propagate if no newer edit replaced the entry meanwhile, otherwise it goes out next round
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                propagate(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    @PreDestroy
+    void flush() {
+        new HashMap<>(pending).forEach((listingId, snapshot) -> {
+            if (pending.remove(listingId, snapshot)) {
+                propagate(listingId, snapshot);
+            }
+        });
+    }
+
+    private void propagate(String listingId, PendingSnapshot pendingSnapshot) {
+        ListingSnapshot snapshot = pendingSnapshot.snapshot();
+        Map<String, Object> params = new HashMap<>();
+        params.put("propertyTitle", snapshot.propertyTitle());
+        params.put("propertyAddress", snapshot.propertyAddress());
+        params.put("agentEmail", snapshot.agentEmail());
+
+        UpdateQuery updateQuery = UpdateQuery.builder(new CriteriaQuery(Criteria.where("propertyListingId").is(listingId)))
+                .withScriptType(ScriptType.INLINE)
+                .withLang("painless")
+                .withScript(SNAPSHOT_SCRIPT)
+                .withParams(params)
+                .withAbortOnVersionConflict(false)
+                .withRequestsPerSecond(requestsPerSecond)
+                .build();
+
+        try {
+            ByQueryResponse response = elasticsearchOperations.updateByQuery(
+                    updateQuery,
+                    elasticsearchOperations.getIndexCoordinatesFor(PropertyViewing.class)
+            );
+            metricsService.recordSnapshotPropagation(response.getUpdated());
+
+            if (response.getVersionConflicts() > 0) {
+                // Some viewings were modified concurrently, run again on the next drain
+                pending.putIfAbsent(listingId, new PendingSnapshot(snapshot, pendingSnapshot.enqueuedAtNanos()));
+            }
+            log.info("Propagated listing snapshot for {} to {} viewings (conflicts: {})",
+                    listingId, response.getUpdated(), response.getVersionConflicts());
+        } catch (Exception e) {
+            metricsService.recordSnapshotPropagationFailure();
+            pending.putIfAbsent(listingId, new PendingSnapshot(snapshot, pendingSnapshot.enqueuedAtNanos()));
+            log.error("Failed to propagate listing snapshot for {}, will retry", listingId, e);
+        }
+    }
+
+    public record ListingSnapshot(String propertyTitle, String propertyAddress, String agentEmail) {
+    }
+
+    private record PendingSnapshot(ListingSnapshot snapshot, long enqueuedAtNanos) {
+    }
+}
@@ -0,0 +1,138 @@
+package com.devtiro.realestate.scheduling;
+
+import com.devtiro.realestate.domain.entities.PropertyViewing;
+import com.devtiro.realestate.domain.entities.ViewingStatus;
+import com.devtiro.realestate.repositories.PropertyViewingRepository;
+import com.devtiro.realestate.services.NotificationService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends a reminder to the user and the agent before a confirmed viewing
+ *
+ * Upcoming CONFIRMED viewings within the configured horizon are held in a hierarchical timer wheel.
+ * The wheel is refreshed incrementally by PropertyViewingService whenever a viewing is confirmed,
+ * rescheduled or cancelled, and fully reloaded on a slow schedule to pick up viewings entering the horizon.
+ * Each tick only looks at the reminders that are due, never at the whole property_viewings index.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ViewingReminderScheduler {
+
+    private static final int WHEEL_SIZE = 60;
+    private static final int WHEEL_LEVELS = 3;
+
+    @Value("${viewing.reminder.lead-time-minutes}")
+    private long leadTimeMinutes;
+
+    @Value("${viewing.reminder.horizon-hours}")
+    private long horizonHours;
+
+    @Value("${viewing.reminder.tick-seconds}")
+    private long tickSeconds;
+
+    private final PropertyViewingRepository viewingRepository;
+    private final NotificationService notificationService;
+
+    private HierarchicalTimerWheel<String, PropertyViewing> wheel;
+
+    @PostConstruct
+    void initWheel() {
+        wheel = new HierarchicalTimerWheel<>(
+                TimeUnit.SECONDS.toMillis(tickSeconds),
+                WHEEL_SIZE,
+                WHEEL_LEVELS,
+                System.currentTimeMillis()
+        );
+    }
+
+    /**
+     * Load every confirmed viewing whose reminder falls within the horizon
+     * Runs once on startup and then periodically as the horizon moves forward
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+            initialDelayString = "${viewing.reminder.reload-interval-minutes}",
+            fixedDelayString = "${viewing.reminder.reload-interval-minutes}",
+            timeUnit = TimeUnit.MINUTES
+    )
+    public void loadUpcomingViewings() {
+        LocalDateTime now = LocalDateTime.now();
+        List<PropertyViewing> upcoming = viewingRepository.findAllByStatusAndScheduledDateTimeBetween(
+                ViewingStatus.CONFIRMED,
+                now.plusMinutes(leadTimeMinutes),
+                now.plusHours(horizonHours)
+        );
+
+        upcoming.forEach(this::refresh);
+        log.info("Loaded {} upcoming viewings into the reminder wheel ({} pending)", upcoming.size(), wheel.size());
+    }
+
+    /**
+     * Advance the wheel and dispatch the reminders that became due
+     */
+    @Scheduled(fixedDelayString = "${viewing.reminder.tick-seconds}", timeUnit = TimeUnit.SECONDS)
+    public void tick() {
+        List<PropertyViewing> dueReminders = wheel.advance(System.currentTimeMillis());
+        dueReminders.forEach(this::dispatch);
+    }
+
+    /**
+     * Schedule, move or drop the reminder of a viewing based on its current state
+     */
+    public void refresh(PropertyViewing viewing) {
+        if (viewing.getId() == null) {
+            return;
+        }
+        if (viewing.getStatus() != ViewingStatus.CONFIRMED || viewing.getScheduledDateTime() == null) {
+            wheel.cancel(viewing.getId());
+            return;
+        }
+
+        LocalDateTime reminderTime = viewing.getScheduledDateTime().minusMinutes(leadTimeMinutes);
+        LocalDateTime now = LocalDateTime.now();
+        if (reminderTime.isBefore(now) || reminderTime.isAfter(now.plusHours(horizonHours))) {
+            // Either too late for a reminder, or the periodic reload will pick it up later
+            wheel.cancel(viewing.getId());
+            return;
+        }
+
+        wheel.schedule(viewing.getId(), toEpochMillis(reminderTime), viewing);
+    }
+
+    public void cancel(String viewingId) {
+        wheel.cancel(viewingId);
+    }
+
+    private void dispatch(PropertyViewing scheduled) {
+        try {
+            // The wheel holds a snapshot, re-read the viewing in case it changed on another node
+            var viewing = viewingRepository.findById(scheduled.getId()).orElse(null);
+            if (viewing == null
+                    || viewing.getStatus() != ViewingStatus.CONFIRMED
+                    || !viewing.getScheduledDateTime().equals(scheduled.getScheduledDateTime())) {
+                log.debug("Skipping reminder for viewing {}, it is no longer confirmed at the same time", scheduled.getId());
+                return;
+            }
+            notificationService.notifyViewingReminder(viewing);
+        } catch (Exception e) {
+            log.error("Failed to dispatch reminder for viewing: {}", scheduled.getId(), e);
+        }
+    }
+
+    private long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,114 @@
+package com.devtiro.realestate.scheduling;
+
+import com.devtiro.realestate.domain.entities.PropertyViewing;
+import com.devtiro.realestate.domain.entities.ViewingStatus;
+import com.devtiro.realestate.security.MetricsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.RefreshPolicy;
+import org.springframework.data.elasticsearch.core.ScriptType;
+import org.springframework.data.elasticsearch.core.query.ByQueryResponse;
+import org.springframework.data.elasticsearch.core.query.Criteria;
+import org.springframework.data.elasticsearch.core.query.CriteriaQuery;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background sweeper for automatic viewing status transitions
+ * - REQUESTED / RESCHEDULED viewings whose time has passed without confirmation -> EXPIRED
+ * - CONFIRMED viewings past their time plus a grace period -> COMPLETED
+ *   (agents can still correct a viewing to NO_SHOW through the status endpoint)
+ *
+ * Each transition is a single throttled _update_by_query on a status + scheduledDateTime range,
+ * so no documents are pulled into the application and no request thread pays for the cleanup.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ViewingStatusSweeper {
+
+    private static final DateTimeFormatter SCHEDULED_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    private static final DateTimeFormatter AUDIT_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS");
+
+    private static final String TRANSITION_SCRIPT =
+            "ctx._source.status = params.status; " +
+            "ctx._source.lastModifiedDate = params.now; " +
+            "ctx._source.lastModifiedBy = params.modifiedBy";
+
+    @Value("${viewing.sweeper.completed-grace-period-minutes}")
+    private long completedGracePeriodMinutes;
+
+    @Value("${viewing.sweeper.batch-size}")
+    private int batchSize;
+
+    @Value("${viewing.sweeper.max-docs-per-run}")
+    private int maxDocsPerRun;
+
+    @Value("${viewing.sweeper.requests-per-second}")
+    private float requestsPerSecond;
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final MetricsService metricsService;
+
+    @Scheduled(
+            initialDelayString = "${viewing.sweeper.interval-minutes}",
+            fixedDelayString = "${viewing.sweeper.interval-minutes}",
+            timeUnit = TimeUnit.MINUTES
+    )
+    public void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+
+        transition(List.of(ViewingStatus.REQUESTED, ViewingStatus.RESCHEDULED), now, ViewingStatus.EXPIRED);
+        transition(List.of(ViewingStatus.CONFIRMED), now.minusMinutes(completedGracePeriodMinutes), ViewingStatus.COMPLETED);
+    }
+
+    private void transition(List<ViewingStatus> fromStatuses, LocalDateTime scheduledBefore, ViewingStatus toStatus) {
+        long startTime = System.nanoTime();
+
+        Criteria criteria = Criteria.where("status").in(fromStatuses.stream().map(Enum::name).toList())
+                .and(Criteria.where("scheduledDateTime").lessThan(scheduledBefore.format(SCHEDULED_FORMATTER)));
+
+        UpdateQuery updateQuery = UpdateQuery.builder(new CriteriaQuery(criteria))
+                .withScriptType(ScriptType.INLINE)
+                .withLang("painless")
+                .withScript(TRANSITION_SCRIPT)
+                .withParams(Map.of(
+                        "status", toStatus.name(),
+                        "now", LocalDateTime.now().format(AUDIT_FORMATTER),
+                        "modifiedBy", "system"
+                ))
+                .withAbortOnVersionConflict(false) // a concurrent user update wins, the next sweep retries
+                .withBatchSize(batchSize)
+                .withMaxDocs(maxDocsPerRun)
+                .withRequestsPerSecond(requestsPerSecond)
+                .withRefreshPolicy(RefreshPolicy.IMMEDIATE)
+                .build();
+
+        try {
+            ByQueryResponse response = elasticsearchOperations.updateByQuery(
+                    updateQuery,
+                    elasticsearchOperations.getIndexCoordinatesFor(PropertyViewing.class)
+            );
+
+            metricsService.recordViewingStatusSweep(toStatus.name(), response.getUpdated(), response.getVersionConflicts());
+            if (response.getUpdated() > 0 || response.getVersionConflicts() > 0) {
+                log.info("Viewing sweep {} -> {}: updated={}, conflicts={}, took={}ms",
+                        fromStatuses, toStatus, response.getUpdated(), response.getVersionConflicts(), response.getTook());
+            }
+        } catch (Exception e) {
+            metricsService.recordViewingStatusSweepFailure(toStatus.name());
+            log.error("Viewing sweep {} -> {} failed", fromStatuses, toStatus, e);
+        } finally {
+            metricsService.recordViewingStatusSweepDuration(toStatus.name(), System.nanoTime() - startTime);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.devtiro.realestate.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free ring buffer for many producers and a single consumer
+ *
+ * Producers claim a sequence with a CAS and never block, a full buffer rejects the element.
+ * A claimed slot becomes visible to the consumer once the element is stored, the consumer
+ * stops at the first slot that has been claimed but not stored yet.
+ */
+class AuditRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * @param capacity rounded up to the next power of two
+     */
+    AuditRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Add an element, called by any thread
+     *
+     * @return false if the buffer is full
+     */
+    boolean offer(E element) {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head.get() >= slots.length()) {
+                return false;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+
+        slots.lazySet((int) (sequence & mask), element);
+        return true;
+    }
+
+    /**
+     * Remove the oldest element, called by the consumer thread only
+     *
+     * @return null if the buffer is empty
+     */
+    E poll() {
+        long sequence = head.get();
+        int index = (int) (sequence & mask);
+        E element = slots.get(index);
+        if (element == null) {
+            return null;
+        }
+        // Free the slot before moving head, a producer may reuse it as soon as head has moved
+        slots.lazySet(index, null);
+        head.lazySet(sequence + 1);
+        return element;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+}
@@ -0,0 +1,69 @@
+package com.devtiro.realestate.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory LoginAttemptStore backed by a bounded Caffeine cache
+ *
+ * Entries expire as soon as their lock and windows are over, and the size bound keeps memory flat when
+ * an attacker cycles through random emails. Updates go through compute on the (internally striped)
+ * map, so concurrent failures for one key are never lost.
+ */
+@Component
+public class CaffeineLoginAttemptStore implements LoginAttemptStore {
+
+    private final Cache<String, LoginAttemptWindow> windows;
+    private final long windowMillis;
+
+    public CaffeineLoginAttemptStore(
+            @Value("${security.login-attempts.window-minutes}") long windowMinutes,
+            @Value("${security.login-attempts.store-maximum-size}") long maximumSize
+    ) {
+        this.windowMillis = TimeUnit.MINUTES.toMillis(windowMinutes);
+        this.windows = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new ExpireWhenIdle())
+                .build();
+    }
+
+    @Override
+    public LoginAttemptWindow recordFailure(String key, long windowMillis, int maxAttempts, long lockoutMillis) {
+        long now = System.currentTimeMillis();
+        return windows.asMap().compute(key, (k, window) ->
+                LoginAttemptWindow.recordFailure(window, now, windowMillis, maxAttempts, lockoutMillis));
+    }
+
+    @Override
+    public LoginAttemptWindow get(String key) {
+        return windows.getIfPresent(key);
+    }
+
+    @Override
+    public void reset(String key) {
+        windows.invalidate(key);
+    }
+
+    private final class ExpireWhenIdle implements Expiry<String, LoginAttemptWindow> {
+
+        @Override
+        public long expireAfterCreate(String key, LoginAttemptWindow window, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(window.remainingLifetime(System.currentTimeMillis(), windowMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, LoginAttemptWindow window, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, window, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, LoginAttemptWindow window, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.devtiro.realestate.security;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Resolve the client IP address of a request
+ * Handles X-Forwarded-For header for proxied requests
+ *
+ * The header is only read on requests from a trusted proxy, anybody else could put any address in it and
+ * get a fresh rate limit bucket or lockout counter per request. Entries are read from the right, the ones
+ * added by trusted proxies are skipped and the first other one is the client.
+ */
+@Slf4j
+@Component
+public class ClientIpResolver {
+
+    @Value("${security.client-ip.trust-forwarded-for}")
+    private boolean trustForwardedFor;
+
+    // IP addresses or CIDR ranges, e.g. 10.0.0.0/8
+    @Value("${security.client-ip.trusted-proxies:}")
+    private List<String> trustedProxies;
+
+    private List<IpAddressMatcher> trustedProxyMatchers = List.of();
+
+    @PostConstruct
+    void initTrustedProxies() {
+        trustedProxyMatchers = trustedProxies.stream()
+                .map(String::trim)
+                .filter(proxy -> !proxy.isEmpty())
+                .map(IpAddressMatcher::new)
+                .toList();
+        if (trustForwardedFor && trustedProxyMatchers.isEmpty()) {
+            log.warn("security.client-ip.trust-forwarded-for is on without trusted proxies, X-Forwarded-For is ignored");
+        }
+    }
+
+    public String resolve(HttpServletRequest request) {
+        String remoteAddress = request.getRemoteAddr();
+        if (!trustForwardedFor || !isTrustedProxy(remoteAddress)) {
+            return remoteAddress;
+        }
+
+        String xForwardedForHeader = request.getHeader("X-Forwarded-For");
+        if (xForwardedForHeader == null || xForwardedForHeader.isBlank()) {
+            return remoteAddress;
+        }
+
+        String[] hops = xForwardedForHeader.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (!hop.isEmpty() && !isTrustedProxy(hop)) {
+                return hop;
+            }
+        }
+        // Only proxies in the chain, the request came from inside
+        return remoteAddress;
+    }
+
+    private boolean isTrustedProxy(String address) {
+        for (IpAddressMatcher matcher : trustedProxyMatchers) {
+            try {
+                if (matcher.matches(address)) {
+                    return true;
+                }
+            } catch (IllegalArgumentException e) {
+                // Not an IP address, e.g. "unknown"
+                return false;
+            }
+        }
+        return false;
+    }
+}
@@ -2,9 +2,12 @@ package com.devtiro.realestate.security;
 
 import com.devtiro.realestate.domain.entities.User;
 import com.devtiro.realestate.repositories.UserRepository;
+import com.devtiro.realestate.services.UserUniqueKeyService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -12,11 +15,14 @@ import org.springframework.stereotype.Service;
 /**
  * Custom UserDetailsService implementation for loading user data
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final UserUniqueKeyService userUniqueKeyService;
+    private final MetricsService metricsService;
 
     /**
      * Load user by email with caching
@@ -28,15 +34,37 @@ public class CustomUserDetailsService implements UserDetailsService {
      * Cache Configuration:
      * - Cache name: "usersByEmail"
      * - Cache key: email
-     * - TTL: 15 minutes (configured in CacheConfig)
-     * - Max size: 1000 entries
-     * - Evicted on: token refresh, logout, password change
+     * - TTL: app.cache.caches.usersByEmail (configured in CacheRegistry)
+     * - Evicted on: every save or delete of the user, on all nodes (see UserCacheInvalidator)
      */
     @Override
     @Cacheable(value = "usersByEmail", key = "#email", unless = "#result == null")
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email)
+        User user = userUniqueKeyService.findUserByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + email));
         return user;
     }
+
+    /**
+     * Store a password re-hashed with the configured strength, called by the DaoAuthenticationProvider after a
+     * successful login with a hash of another strength
+     *
+     * @param user the authenticated user
+     * @param newPassword the already encoded password
+     * @return the updated user
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        String email = ((User) user).getEmail();
+        User storedUser = userUniqueKeyService.findUserByEmail(email)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + email));
+
+        storedUser.setPassword(newPassword);
+        User savedUser = userRepository.save(storedUser);
+
+        metricsService.recordPasswordRehash();
+        log.info("Re-hashed password with the configured strength for user: {}", email);
+
+        return savedUser;
+    }
 }
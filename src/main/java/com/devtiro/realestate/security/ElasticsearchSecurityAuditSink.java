@@ -0,0 +1,126 @@
+package com.devtiro.realestate.security;
+
+import com.devtiro.realestate.domain.entities.SecurityAuditRecord;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexInformation;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.index.PutIndexTemplateRequest;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk indexes security audit events into daily {@code security_audit-yyyy.MM.dd} indices
+ *
+ * A new index is started every day (UTC), retention deletes whole indices instead of documents.
+ * The index template gives every daily index the mapping of {@link SecurityAuditRecord}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "security.audit.elasticsearch.enabled", havingValue = "true", matchIfMissing = true)
+public class ElasticsearchSecurityAuditSink implements SecurityAuditSink {
+
+    public static final String INDEX_PREFIX = "security_audit-";
+    public static final String INDEX_PATTERN = INDEX_PREFIX + "*";
+
+    private static final DateTimeFormatter INDEX_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy.MM.dd");
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final int retentionDays;
+
+    public ElasticsearchSecurityAuditSink(
+            ElasticsearchOperations elasticsearchOperations,
+            @Value("${security.audit.elasticsearch.retention-days}") int retentionDays
+    ) {
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.retentionDays = retentionDays;
+    }
+
+    @PostConstruct
+    void putIndexTemplate() {
+        try {
+            IndexOperations indexOps = elasticsearchOperations.indexOps(SecurityAuditRecord.class);
+            indexOps.putIndexTemplate(PutIndexTemplateRequest.builder()
+                    .withName("security_audit")
+                    .withIndexPatterns(INDEX_PATTERN)
+                    .withMapping(indexOps.createMapping())
+                    .build());
+        } catch (Exception e) {
+            // Events are still indexed, with dynamic mappings the aggregations don't work until the template exists
+            log.error("Failed to put the security audit index template", e);
+        }
+    }
+
+    @Override
+    public void write(List<SecurityAuditEvent> events) {
+        List<IndexQuery> queries = events.stream()
+                .map(event -> new IndexQueryBuilder()
+                        .withObject(toRecord(event))
+                        .withIndex(indexName(event))
+                        .build())
+                .toList();
+
+        // Every query names its index, the coordinates are only the fallback
+        elasticsearchOperations.bulkIndex(queries, IndexCoordinates.of(indexName(events.getFirst())));
+    }
+
+    /**
+     * Delete the daily indices older than the retention
+     */
+    @Scheduled(
+            initialDelayString = "${security.audit.elasticsearch.retention-check-minutes}",
+            fixedDelayString = "${security.audit.elasticsearch.retention-check-minutes}",
+            timeUnit = TimeUnit.MINUTES
+    )
+    public void deleteExpiredIndices() {
+        LocalDate oldestKept = LocalDate.now(ZoneOffset.UTC).minusDays(retentionDays);
+        try {
+            List<IndexInformation> indices = elasticsearchOperations.indexOps(IndexCoordinates.of(INDEX_PATTERN)).getInformation();
+            for (IndexInformation index : indices) {
+                LocalDate date = parseIndexDate(index.getName());
+                if (date != null && date.isBefore(oldestKept)) {
+                    elasticsearchOperations.indexOps(IndexCoordinates.of(index.getName())).delete();
+                    log.info("Deleted expired security audit index: {}", index.getName());
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to delete expired security audit indices", e);
+        }
+    }
+
+    private SecurityAuditRecord toRecord(SecurityAuditEvent event) {
+        return SecurityAuditRecord.builder()
+                .timestamp(event.timestamp())
+                .type(event.type().name())
+                .user(event.user())
+                .ipAddress(event.ipAddress())
+                .reason(event.details().get("reason"))
+                .details(event.details())
+                .build();
+    }
+
+    private String indexName(SecurityAuditEvent event) {
+        return INDEX_PREFIX + INDEX_DATE_FORMATTER.format(event.timestamp().atZone(ZoneOffset.UTC));
+    }
+
+    private LocalDate parseIndexDate(String indexName) {
+        try {
+            return LocalDate.parse(indexName.substring(INDEX_PREFIX.length()), INDEX_DATE_FORMATTER);
+        } catch (DateTimeParseException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.devtiro.realestate.security;
 
 import com.devtiro.realestate.domain.entities.User;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -23,9 +24,13 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final SubjectRevocationRegistry subjectRevocationRegistry;
+    private final TokenRevocationService tokenRevocationService;
     private final UserDetailsService userDetailsService;
     private final MetricsService metricsService;
     private final SecurityAuditService securityAuditService;
+    private final ClientIpResolver clientIpResolver;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -34,32 +39,37 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             var jwt = getJwtFromRequest(request);
 
             if (StringUtils.hasText(jwt)) {
-                // Check if token is expired first (faster check)
-                if (jwtService.isTokenExpired(jwt)) {
+                // Parse and verify the token once, the outcome drives everything below
+                JwtValidationResult result = resolveToken(jwt);
+
+                if (result.isExpired()) {
                     log.debug("JWT token is expired for request: {}", request.getRequestURI());
 
                     // Record expired token metric
                     metricsService.recordExpiredToken();
 
-                    // Try to extract email for audit log (may fail if token is malformed)
-                    try {
-                        String email = jwtService.getEmailFromToken(jwt);
-                        String ipAddress = getClientIP(request);
-                        securityAuditService.logExpiredTokenAttempt(email, ipAddress);
-                    } catch (Exception e) {
-                        // Token too corrupted to extract email, log with unknown user
-                        String ipAddress = getClientIP(request);
-                        securityAuditService.logExpiredTokenAttempt("unknown", ipAddress);
-                    }
+                    // The signature was verified before the expiration check, so the subject is trustworthy
+                    String email = result.subject() != null ? result.subject() : "unknown";
+                    securityAuditService.logExpiredTokenAttempt(email, clientIpResolver.resolve(request));
 
                     filterChain.doFilter(request, response);
                     return;
                 }
 
-                // Validate token signature and structure
-                if (jwtService.validateToken(jwt)) {
-                    var email = jwtService.getEmailFromToken(jwt);
-                    User user = (User) userDetailsService.loadUserByUsername(email);
+                if (result.isValid()) {
+                    var email = result.subject();
+
+                    if (subjectRevocationRegistry.isRevoked(email, JwtService.issuedAtMillis(result.claims()))
+                            || tokenRevocationService.isRevoked(result.claims().getId())) {
+                        log.debug("Revoked JWT token for request: {}", request.getRequestURI());
+                        metricsService.recordInvalidToken("revoked");
+                        securityAuditService.logInvalidTokenAttempt("Revoked token", clientIpResolver.resolve(request));
+
+                        filterChain.doFilter(request, response);
+                        return;
+                    }
+
+                    User user = resolvePrincipal(email, result);
 
                     if (user != null && email.equals(user.getEmail()) && user.isEnabled()) {
                         UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
@@ -75,13 +85,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                         log.warn("User not found or disabled: {}", email);
                     }
                 } else {
-                    log.debug("Invalid JWT token for request: {}", request.getRequestURI());
+                    log.debug("Invalid JWT token ({}) for request: {}", result.reason(), request.getRequestURI());
 
                     // Record invalid token metric
-                    metricsService.recordInvalidToken("invalid_signature");
+                    metricsService.recordInvalidToken(result.reason());
 
-                    String ipAddress = getClientIP(request);
-                    securityAuditService.logInvalidTokenAttempt("Invalid signature", ipAddress);
+                    String ipAddress = clientIpResolver.resolve(request);
+                    securityAuditService.logInvalidTokenAttempt("Invalid token: " + result.reason(), ipAddress);
                 }
             }
 
@@ -91,31 +101,48 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             // Record invalid token metric for malformed tokens
             metricsService.recordInvalidToken("malformed");
 
-            String ipAddress = getClientIP(request);
+            String ipAddress = clientIpResolver.resolve(request);
             securityAuditService.logInvalidTokenAttempt("Malformed token: " + ex.getMessage(), ipAddress);
         }
 
         filterChain.doFilter(request, response);
     }
 
-    private String getJwtFromRequest(HttpServletRequest request) {
-        var bearerToken = request.getHeader("Authorization");
-        if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
-            return bearerToken.substring(7);
+    /**
+     * Verified claims from the cache, falling back to a full parse and signature check on a miss
+     */
+    private JwtValidationResult resolveToken(String jwt) {
+        Claims cachedClaims = verifiedTokenCache.get(jwt);
+        if (cachedClaims != null) {
+            return JwtValidationResult.valid(cachedClaims);
         }
-        return null;
+
+        JwtValidationResult result = jwtService.parseToken(jwt);
+        if (result.isValid()) {
+            verifiedTokenCache.put(jwt, result.claims());
+        }
+        return result;
     }
 
     /**
-     * Extract client IP address from request
-     * Handles X-Forwarded-For header for proxied requests
+     * Principal straight from the token claims in stateless mode, otherwise (or for tokens issued
+     * without the principal claims) the cached user lookup
      */
-    private String getClientIP(HttpServletRequest request) {
-        String xForwardedForHeader = request.getHeader("X-Forwarded-For");
-        if (xForwardedForHeader == null || xForwardedForHeader.isEmpty()) {
-            return request.getRemoteAddr();
+    private User resolvePrincipal(String email, JwtValidationResult result) {
+        if (jwtService.isStatelessPrincipalEnabled()) {
+            User principal = jwtService.toPrincipal(result.claims());
+            if (principal != null) {
+                return principal;
+            }
+        }
+        return (User) userDetailsService.loadUserByUsername(email);
+    }
+
+    private String getJwtFromRequest(HttpServletRequest request) {
+        var bearerToken = request.getHeader("Authorization");
+        if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
+            return bearerToken.substring(7);
         }
-        // X-Forwarded-For can contain multiple IPs, first one is the client
-        return xForwardedForHeader.split(",")[0].trim();
+        return null;
     }
 }
@@ -0,0 +1,379 @@
+package com.devtiro.realestate.security;
+
+import com.devtiro.realestate.domain.entities.SigningKey;
+import com.devtiro.realestate.repositories.SigningKeyRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.Locator;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.PublicJwk;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import io.jsonwebtoken.security.UnsupportedKeyException;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.*;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Owner of the JWT signing and verification keys
+ *
+ * In asymmetric mode (ES256 or EdDSA) tokens are signed with the newest key from the jwt_signing_keys
+ * index and carry its id in the kid header. Keys are rotated on a schedule, retired keys stay available
+ * for verification and in the JWKS until the last token they signed has expired, so a rotation never
+ * logs anybody out. Tokens without kid were signed with the HMAC secret. With legacy verification on they are
+ * accepted until the last access token signed before the switch has expired, the switch being the activation of
+ * the oldest key in the index, so upgrading from HS256 doesn't log everybody out. Afterwards they are rejected.
+ * Refresh tokens are verified by {@link #refreshTokenLocator()}, which accepts them for the refresh token lifetime.
+ * The secret has to stay out of reach of callers until then, anyone holding it can sign such tokens.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JwtKeyManager extends LocatorAdapter<Key> {
+
+    private static final String HMAC_ALGORITHM = "HS256";
+    private static final Set<String> SUPPORTED_ALGORITHMS = Set.of(HMAC_ALGORITHM, "ES256", "EdDSA");
+    private static final int GCM_IV_LENGTH = 12;
+    private static final int GCM_TAG_LENGTH_BITS = 128;
+
+    private final SigningKeyRepository signingKeyRepository;
+
+    @Value("${jwt.secret}")
+    private String secret;
+
+    @Value("${jwt.signing.algorithm}")
+    private String algorithm;
+
+    @Value("${jwt.signing.rotation-interval-days}")
+    private long rotationIntervalDays;
+
+    @Value("${jwt.signing.rotation-check-minutes}")
+    private long rotationCheckMinutes;
+
+    @Value("${jwt.signing.legacy-hmac-verification}")
+    private boolean legacyHmacVerification;
+
+    @Value("${jwt.access-token-expiration}")
+    private long accessTokenExpirationMs;
+
+    // Longest lived token type, a retired key has to verify tokens for this long
+    @Value("${jwt.refresh-token-expiration}")
+    private long maxTokenLifetimeMs;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    // Parsed public keys by kid
+    private final Map<String, PublicKey> verificationKeys = new ConcurrentHashMap<>();
+
+    // Key ids that were looked up and not found, so forged kids can't turn every request into an Elasticsearch GET
+    private final Cache<String, Boolean> unknownKeyIds = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .build();
+
+    private SecretKey hmacKey;
+    private SecretKey keyEncryptionKey;
+
+    // Tokens without kid were signed before then, null rejects them in asymmetric mode, set by the first key sync
+    private volatile LocalDateTime legacyHmacSwitchedAt;
+
+    private volatile ActiveSigningKey activeSigningKey;
+    private volatile List<PublicJwk<?>> publishedKeys = List.of();
+
+    /**
+     * Private key that signs new tokens, together with its kid
+     */
+    public record ActiveSigningKey(String keyId, PrivateKey privateKey, SignatureAlgorithm algorithm, LocalDateTime retiresAt) {
+    }
+
+    @PostConstruct
+    void initKeys() throws NoSuchAlgorithmException {
+        if (!SUPPORTED_ALGORITHMS.contains(algorithm)) {
+            throw new IllegalStateException("Unsupported JWT signing algorithm: " + algorithm);
+        }
+
+        byte[] secretBytes = Decoders.BASE64.decode(secret);
+        this.hmacKey = Keys.hmacShaKeyFor(secretBytes);
+        this.keyEncryptionKey = new SecretKeySpec(MessageDigest.getInstance("SHA-256").digest(secretBytes), "AES");
+    }
+
+    public boolean isAsymmetric() {
+        return !HMAC_ALGORITHM.equals(algorithm);
+    }
+
+    public SecretKey hmacKey() {
+        return hmacKey;
+    }
+
+    public ActiveSigningKey currentSigningKey() {
+        ActiveSigningKey signingKey = activeSigningKey;
+        if (signingKey == null || !signingKey.retiresAt().isAfter(LocalDateTime.now())) {
+            signingKey = rotateIfDue();
+        }
+        return signingKey;
+    }
+
+    /**
+     * Public keys that currently verify tokens, for the JWKS endpoint
+     */
+    public List<PublicJwk<?>> publishedKeys() {
+        if (isAsymmetric() && activeSigningKey == null) {
+            rotateIfDue();
+        }
+        return publishedKeys;
+    }
+
+    /**
+     * Locator for refresh tokens, tokens without kid are accepted until the last refresh token signed before
+     * the switch has expired, so they can still be exchanged for a session
+     */
+    public Locator<Key> refreshTokenLocator() {
+        return new LocatorAdapter<>() {
+            @Override
+            protected Key locate(JwsHeader header) {
+                return JwtKeyManager.this.locate(header, maxTokenLifetimeMs);
+            }
+        };
+    }
+
+    /**
+     * Pick the verification key for a token from its kid header
+     */
+    @Override
+    protected Key locate(JwsHeader header) {
+        return locate(header, accessTokenExpirationMs);
+    }
+
+    /**
+     * @param legacyTokenLifetimeMs how long a token of the verified type signed before the switch lives
+     */
+    private Key locate(JwsHeader header, long legacyTokenLifetimeMs) {
+        String keyId = header.getKeyId();
+        if (keyId == null) {
+            LocalDateTime switchedAt = legacyHmacSwitchedAt;
+            if (!isAsymmetric() || (switchedAt != null
+                    && LocalDateTime.now().isBefore(switchedAt.plus(Duration.ofMillis(legacyTokenLifetimeMs))))) {
+                return hmacKey;
+            }
+            throw new UnsupportedKeyException("Tokens without a key id are not accepted");
+        }
+
+        PublicKey publicKey = verificationKeys.get(keyId);
+        return publicKey != null ? publicKey : loadVerificationKey(keyId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+            initialDelayString = "${jwt.signing.rotation-check-minutes}",
+            fixedDelayString = "${jwt.signing.rotation-check-minutes}",
+            timeUnit = TimeUnit.MINUTES
+    )
+    public void scheduledRotation() {
+        if (isAsymmetric()) {
+            rotateIfDue();
+        }
+    }
+
+    /**
+     * Sync the keys with the index and create a new signing key if the newest one retires before the next check
+     */
+    public synchronized ActiveSigningKey rotateIfDue() {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            signingKeyRepository.deleteAllByExpiresAtBefore(now);
+            List<SigningKey> keys = new ArrayList<>(signingKeyRepository.findAllByExpiresAtAfter(now));
+
+            LocalDateTime nextCheck = now.plusMinutes(rotationCheckMinutes);
+            SigningKey currentKey = keys.stream()
+                    .filter(key -> algorithm.equals(key.getAlgorithm()))
+                    .filter(key -> key.getRetiresAt().isAfter(nextCheck))
+                    .max(Comparator.comparing(SigningKey::getActivatedAt))
+                    .orElse(null);
+
+            if (currentKey == null) {
+                currentKey = createSigningKey(now);
+                keys.add(currentKey);
+                log.info("Rotated JWT signing key, new kid: {}", currentKey.getId());
+            }
+
+            Map<String, PublicKey> parsedKeys = new HashMap<>();
+            List<PublicJwk<?>> jwks = new ArrayList<>();
+            for (SigningKey key : keys) {
+                PublicKey publicKey = verificationKeys.containsKey(key.getId())
+                        ? verificationKeys.get(key.getId())
+                        : decodePublicKey(key);
+                parsedKeys.put(key.getId(), publicKey);
+                jwks.add(Jwks.builder()
+                        .key(publicKey)
+                        .id(key.getId())
+                        .algorithm(key.getAlgorithm())
+                        .publicKeyUse("sig")
+                        .build());
+            }
+
+            if (legacyHmacVerification && legacyHmacSwitchedAt == null) {
+                initLegacyHmacSwitchedAt(keys);
+            }
+
+            verificationKeys.putAll(parsedKeys);
+            verificationKeys.keySet().retainAll(parsedKeys.keySet());
+            publishedKeys = List.copyOf(jwks);
+
+            ActiveSigningKey signingKey = activeSigningKey;
+            if (signingKey == null || !signingKey.keyId().equals(currentKey.getId())) {
+                signingKey = new ActiveSigningKey(
+                        currentKey.getId(),
+                        decryptPrivateKey(currentKey),
+                        signatureAlgorithm(currentKey.getAlgorithm()),
+                        currentKey.getRetiresAt()
+                );
+                activeSigningKey = signingKey;
+            }
+            return signingKey;
+        } catch (Exception e) {
+            log.error("Failed to sync JWT signing keys", e);
+            if (activeSigningKey == null) {
+                throw new IllegalStateException("No JWT signing key available", e);
+            }
+            return activeSigningKey;
+        }
+    }
+
+    /**
+     * The oldest key was the first to sign instead of the HMAC secret. Once the tokens signed before it expired,
+     * later keys only move the cutoff further into the past.
+     */
+    private void initLegacyHmacSwitchedAt(List<SigningKey> keys) {
+        keys.stream()
+                .map(SigningKey::getActivatedAt)
+                .min(Comparator.naturalOrder())
+                .ifPresent(switchedAt -> {
+                    legacyHmacSwitchedAt = switchedAt;
+                    LocalDateTime refreshCutoff = switchedAt.plus(Duration.ofMillis(maxTokenLifetimeMs));
+                    if (LocalDateTime.now().isBefore(refreshCutoff)) {
+                        log.warn("Accepting JWT tokens without key id, signed with jwt.secret, access tokens until {}, refresh tokens until {}",
+                                switchedAt.plus(Duration.ofMillis(accessTokenExpirationMs)), refreshCutoff);
+                    }
+                });
+    }
+
+    /**
+     * Key created by another instance since the last sync
+     */
+    private PublicKey loadVerificationKey(String keyId) {
+        if (unknownKeyIds.getIfPresent(keyId) != null) {
+            throw new UnsupportedKeyException("Unknown signing key id");
+        }
+
+        var signingKey = signingKeyRepository.findById(keyId)
+                .filter(key -> key.getExpiresAt().isAfter(LocalDateTime.now()));
+        if (signingKey.isEmpty()) {
+            unknownKeyIds.put(keyId, Boolean.TRUE);
+            throw new UnsupportedKeyException("Unknown signing key id");
+        }
+
+        PublicKey publicKey = decodePublicKey(signingKey.get());
+        verificationKeys.put(keyId, publicKey);
+        return publicKey;
+    }
+
+    private SigningKey createSigningKey(LocalDateTime now) throws GeneralSecurityException {
+        KeyPair keyPair = generateKeyPair();
+        String keyId = UUID.randomUUID().toString();
+        LocalDateTime retiresAt = now.plusDays(rotationIntervalDays);
+
+        return signingKeyRepository.save(SigningKey.builder()
+                .id(keyId)
+                .algorithm(algorithm)
+                .publicKey(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()))
+                .encryptedPrivateKey(encrypt(keyId, keyPair.getPrivate().getEncoded()))
+                .activatedAt(now)
+                .retiresAt(retiresAt)
+                .expiresAt(retiresAt.plus(Duration.ofMillis(maxTokenLifetimeMs)))
+                .build());
+    }
+
+    private KeyPair generateKeyPair() throws GeneralSecurityException {
+        if ("ES256".equals(algorithm)) {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"), secureRandom);
+            return generator.generateKeyPair();
+        }
+        return KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+    }
+
+    private PublicKey decodePublicKey(SigningKey signingKey) {
+        try {
+            byte[] encoded = Base64.getDecoder().decode(signingKey.getPublicKey());
+            return KeyFactory.getInstance(keyFactoryAlgorithm(signingKey.getAlgorithm()))
+                    .generatePublic(new X509EncodedKeySpec(encoded));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Invalid public key for kid: " + signingKey.getId(), e);
+        }
+    }
+
+    private PrivateKey decryptPrivateKey(SigningKey signingKey) throws GeneralSecurityException {
+        byte[] encoded = decrypt(signingKey.getId(), signingKey.getEncryptedPrivateKey());
+        return KeyFactory.getInstance(keyFactoryAlgorithm(signingKey.getAlgorithm()))
+                .generatePrivate(new PKCS8EncodedKeySpec(encoded));
+    }
+
+    /**
+     * AES-GCM with the kid as associated data, so an encrypted key can't be swapped to another kid
+     */
+    private String encrypt(String keyId, byte[] plaintext) throws GeneralSecurityException {
+        byte[] iv = new byte[GCM_IV_LENGTH];
+        secureRandom.nextBytes(iv);
+
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, keyEncryptionKey, new GCMParameterSpec(GCM_TAG_LENGTH_BITS, iv));
+        cipher.updateAAD(keyId.getBytes(StandardCharsets.UTF_8));
+        byte[] ciphertext = cipher.doFinal(plaintext);
+
+        byte[] result = new byte[iv.length + ciphertext.length];
+        System.arraycopy(iv, 0, result, 0, iv.length);
+        System.arraycopy(ciphertext, 0, result, iv.length, ciphertext.length);
+        return Base64.getEncoder().encodeToString(result);
+    }
+
+    private byte[] decrypt(String keyId, String encrypted) throws GeneralSecurityException {
+        byte[] data = Base64.getDecoder().decode(encrypted);
+
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, keyEncryptionKey, new GCMParameterSpec(GCM_TAG_LENGTH_BITS, data, 0, GCM_IV_LENGTH));
+        cipher.updateAAD(keyId.getBytes(StandardCharsets.UTF_8));
+        return cipher.doFinal(data, GCM_IV_LENGTH, data.length - GCM_IV_LENGTH);
+    }
+
+    private static String keyFactoryAlgorithm(String jwtAlgorithm) {
+        return "ES256".equals(jwtAlgorithm) ? "EC" : "Ed25519";
+    }
+
+    private static SignatureAlgorithm signatureAlgorithm(String jwtAlgorithm) {
+        return "ES256".equals(jwtAlgorithm) ? Jwts.SIG.ES256 : Jwts.SIG.EdDSA;
+    }
+}
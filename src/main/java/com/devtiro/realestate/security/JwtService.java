@@ -1,26 +1,30 @@
 package com.devtiro.realestate.security;
 
+import com.devtiro.realestate.domain.entities.Role;
 import com.devtiro.realestate.domain.entities.User;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
+import jakarta.annotation.PostConstruct;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.SecretKey;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class JwtService {
 
-    @Value("${jwt.secret:404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970}")
-    private String secretKey;
+    // iat only has second precision, revocations are compared against this instead
+    static final String ISSUED_AT_MILLIS_CLAIM = "iat_ms";
+
+    private final JwtKeyManager jwtKeyManager;
 
     @Getter
     @Value("${jwt.access-token-expiration}") // 24 hours in milliseconds
@@ -30,119 +34,177 @@ public class JwtService {
     @Value("${jwt.refresh-token-expiration}")
     private long jwtRefreshTokenExpirationMs;
 
-    public String generateAccessToken(User user) {
+    @Getter
+    @Value("${jwt.stateless-principal.enabled}")
+    private boolean statelessPrincipalEnabled;
+
+    private JwtParser jwtParser;
+    private JwtParser refreshTokenParser;
+
+    /**
+     * Generate access token for user
+     *
+     * @param sessionId refresh token family the access token belongs to, put in the sid claim
+     */
+    public String generateAccessToken(User user, String sessionId) {
         var now = new Date();
         var expiryDate = new Date(now.getTime() + jwtAccessTokenExpirationMs);
 
-        Map<String, Object> extraClaims = Map.of(
-                "username", user.getUsername(),
-                "role", user.getRole().name(),
-                "type", "access"
-        );
+        Map<String, Object> extraClaims = new HashMap<>();
+        extraClaims.put("username", user.getUsername());
+        extraClaims.put("role", user.getRole().name());
+        extraClaims.put("type", "access");
+        extraClaims.put("sid", sessionId);
+        extraClaims.put(ISSUED_AT_MILLIS_CLAIM, now.getTime());
+
+        // Everything the request handlers read from the principal, so the filter can skip the user lookup
+        if (statelessPrincipalEnabled) {
+            extraClaims.put("uid", user.getId());
+            extraClaims.put("enabled", user.isEnabled());
+            extraClaims.put("nonLocked", user.isAccountNonLocked());
+            extraClaims.put("firstName", user.getFirstName());
+            extraClaims.put("lastName", user.getLastName());
+            extraClaims.put("phone", user.getPhoneNumber());
+        }
 
-        return Jwts.builder()
+        return sign(Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(user.getEmail())
                 .claims(extraClaims)
                 .issuedAt(now)
-                .expiration(expiryDate)
-                .signWith(getSigningKey())
-                .compact();
+                .expiration(expiryDate));
     }
 
     /**
      * Generate refresh token for user
+     *
+     * @param sessionId refresh token family, put in the sid claim
      */
-    public String generateRefreshToken(User user) {
+    public String generateRefreshToken(String email, String sessionId) {
         var now = new Date();
         var expiryDate = new Date(now.getTime() + jwtRefreshTokenExpirationMs);
 
-        return Jwts.builder()
-                .subject(user.getEmail())
+        return sign(Jwts.builder()
+                .id(UUID.randomUUID().toString())
+                .subject(email)
                 .claim("type", "refresh")
+                .claim("sid", sessionId)
                 .issuedAt(now)
-                .expiration(expiryDate)
-                .signWith(getSigningKey())
-                .compact();
+                .expiration(expiryDate));
+    }
+
+    /**
+     * Parse and verify the token once
+     *
+     * The signature is checked before the expiration, so the claims of an expired token can be trusted
+     * for auditing. Callers decide on the outcome with the returned status instead of re-parsing.
+     */
+    public JwtValidationResult parseToken(String token) {
+        return parse(jwtParser, token);
     }
 
-    public boolean validateToken(String token) {
+    /**
+     * Parse and verify a token presented for a refresh, like parseToken, but also accepts refresh tokens
+     * signed with the HMAC secret before the switch to asymmetric keys
+     */
+    public JwtValidationResult parseRefreshToken(String token) {
+        return parse(refreshTokenParser, token);
+    }
+
+    private JwtValidationResult parse(JwtParser parser, String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            return JwtValidationResult.valid(claims);
+        } catch (ExpiredJwtException ex) {
+            log.debug("Expired JWT token");
+            return JwtValidationResult.expired(ex.getClaims());
         } catch (SecurityException ex) {
-            log.error("Invalid JWT signature");
+            log.debug("Invalid JWT signature");
+            return JwtValidationResult.invalid("invalid_signature");
         } catch (MalformedJwtException ex) {
-            log.error("Invalid JWT token");
-        } catch (ExpiredJwtException ex) {
-            log.error("Expired JWT token");
+            log.debug("Invalid JWT token");
+            return JwtValidationResult.invalid("malformed");
         } catch (UnsupportedJwtException ex) {
-            log.error("Unsupported JWT token");
+            log.debug("Unsupported JWT token");
+            return JwtValidationResult.invalid("unsupported");
         } catch (IllegalArgumentException ex) {
-            log.error("JWT claims string is empty");
+            log.debug("JWT claims string is empty");
+            return JwtValidationResult.invalid("empty");
+        } catch (JwtException ex) {
+            log.debug("Invalid JWT token: {}", ex.getMessage());
+            return JwtValidationResult.invalid("invalid");
         }
-        return false;
     }
 
     /**
-     * Get email from token
+     * Issue time of a verified token in milliseconds
+     * Tokens issued before the iat_ms claim existed count as issued at the end of their iat second,
+     * so a revocation in that second still rejects them
+     *
+     * @return the issue time, or null if the token has no iat
      */
-    public String getEmailFromToken(String token) {
-        var claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-
-        return claims.getSubject();
+    public static Long issuedAtMillis(Claims claims) {
+        Long issuedAtMillis = claims.get(ISSUED_AT_MILLIS_CLAIM, Long.class);
+        if (issuedAtMillis != null) {
+            return issuedAtMillis;
+        }
+        Date issuedAt = claims.getIssuedAt();
+        return issuedAt != null ? issuedAt.getTime() / 1000 * 1000 + 999 : null;
     }
 
     /**
-     * Validate if token is a refresh token
+     * Build a lightweight principal from the claims of a verified access token
+     *
+     * @return the principal, or null if the token was issued without the principal claims
      */
-    public boolean isRefreshToken(String token) {
-        try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-
-            String type = claims.get("type", String.class);
-            return "refresh".equals(type);
-        } catch (Exception e) {
-            log.error("Error checking token type: {}", e.getMessage());
-            return false;
+    public User toPrincipal(Claims claims) {
+        String userId = claims.get("uid", String.class);
+        String role = claims.get("role", String.class);
+        if (userId == null || role == null) {
+            return null;
         }
-    }
 
+        return User.builder()
+                .id(userId)
+                .email(claims.getSubject())
+                .username(claims.get("username", String.class))
+                .firstName(claims.get("firstName", String.class))
+                .lastName(claims.get("lastName", String.class))
+                .phoneNumber(claims.get("phone", String.class))
+                .role(Role.valueOf(role))
+                .enabled(Boolean.TRUE.equals(claims.get("enabled", Boolean.class)))
+                .accountNonLocked(Boolean.TRUE.equals(claims.get("nonLocked", Boolean.class)))
+                .build();
+    }
 
     /**
-     * Check if token is expired
+     * Build the parser once, it is immutable and thread-safe. The verification key is picked per token
+     * from its kid header by the JwtKeyManager.
      */
-    public boolean isTokenExpired(String token) {
-        try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-
-            return claims.getExpiration().before(new Date());
-        } catch (ExpiredJwtException e) {
-            return true;
-        } catch (Exception e) {
-            log.error("Error checking token expiration: {}", e.getMessage());
-            return true;
-        }
+    @PostConstruct
+    void initParser() {
+        this.jwtParser = Jwts.parser()
+                .keyLocator(jwtKeyManager)
+                .build();
+        this.refreshTokenParser = Jwts.parser()
+                .keyLocator(jwtKeyManager.refreshTokenLocator())
+                .build();
     }
 
-
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    /**
+     * Sign with the current asymmetric key and its kid, or with the HMAC secret in HS256 mode
+     */
+    private String sign(JwtBuilder builder) {
+        if (jwtKeyManager.isAsymmetric()) {
+            var signingKey = jwtKeyManager.currentSigningKey();
+            return builder
+                    .header().keyId(signingKey.keyId()).and()
+                    .signWith(signingKey.privateKey(), signingKey.algorithm())
+                    .compact();
+        }
+        return builder
+                .signWith(jwtKeyManager.hmacKey())
+                .compact();
     }
 
 }
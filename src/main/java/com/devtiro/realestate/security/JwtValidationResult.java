@@ -0,0 +1,53 @@
+package com.devtiro.realestate.security;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Outcome of a single parse and signature check of a JWT
+ *
+ * Claims are present for VALID and EXPIRED tokens (an expired token still had a valid signature),
+ * the reason is present for INVALID tokens and is safe to use as a metric tag.
+ */
+public record JwtValidationResult(Status status, Claims claims, String reason) {
+
+    public enum Status {
+        VALID,
+        EXPIRED,
+        INVALID
+    }
+
+    public static JwtValidationResult valid(Claims claims) {
+        return new JwtValidationResult(Status.VALID, claims, null);
+    }
+
+    public static JwtValidationResult expired(Claims claims) {
+        return new JwtValidationResult(Status.EXPIRED, claims, "expired");
+    }
+
+    public static JwtValidationResult invalid(String reason) {
+        return new JwtValidationResult(Status.INVALID, null, reason);
+    }
+
+    public boolean isValid() {
+        return status == Status.VALID;
+    }
+
+    public boolean isExpired() {
+        return status == Status.EXPIRED;
+    }
+
+    /**
+     * Subject (email) of the token, null for invalid tokens
+     */
+    public String subject() {
+        return claims != null ? claims.getSubject() : null;
+    }
+
+    public String tokenType() {
+        return claims != null ? claims.get("type", String.class) : null;
+    }
+
+    public boolean isRefreshToken() {
+        return "refresh".equals(tokenType());
+    }
+}
@@ -0,0 +1,45 @@
+package com.devtiro.realestate.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Writes security audit events to the dedicated security audit log (see logback-spring.xml)
+ *
+ * Keeps the pipe-delimited format of the log file, so existing parsers of it keep working.
+ */
+@Slf4j(topic = "security.audit")
+@Component
+public class LogSecurityAuditSink implements SecurityAuditSink {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    @Override
+    public void write(List<SecurityAuditEvent> events) {
+        for (SecurityAuditEvent event : events) {
+            String line = format(event);
+            if (event.type().isWarning()) {
+                log.warn(line);
+            } else {
+                log.info(line);
+            }
+        }
+    }
+
+    private String format(SecurityAuditEvent event) {
+        StringBuilder line = new StringBuilder(128)
+                .append("SECURITY_AUDIT | EVENT=").append(event.type());
+        if (event.user() != null) {
+            line.append(" | user=").append(event.user());
+        }
+        event.details().forEach((name, value) -> line.append(" | ").append(name).append('=').append(value));
+        return line.append(" | ip=").append(event.ipAddress())
+                .append(" | timestamp=").append(TIMESTAMP_FORMATTER.format(event.timestamp()))
+                .toString();
+    }
+}
@@ -1,69 +1,86 @@
 package com.devtiro.realestate.security;
 
-import com.devtiro.realestate.domain.dto.AttemptInfo;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Login failure limits per account and per client IP
+ *
+ * The account limit protects a single user against password guessing, the (higher) IP limit catches
+ * credential stuffing that spreads its attempts over many accounts. Both use sliding windows.
+ */
+@Slf4j
 @Service
 public class LoginAttemptService {
 
-    @Value("${security.login-attempts.max-attempts}")
-    private int MAX_ATTEMPTS;
-
-    private long LOCK_TIME_DURATION;
-
-    public LoginAttemptService(@Value("${security.login-attempts.lockout-duration-minutes}") long LOCK_TIME_DURATION) {
-        this.LOCK_TIME_DURATION = LOCK_TIME_DURATION * 60 * 1000;
+    private static final String ACCOUNT_KEY_PREFIX = "account:";
+    private static final String IP_KEY_PREFIX = "ip:";
+
+    private final LoginAttemptStore loginAttemptStore;
+    private final int maxAttempts;
+    private final int ipMaxAttempts;
+    private final long windowMillis;
+    private final long lockTimeDuration;
+
+    public LoginAttemptService(
+            LoginAttemptStore loginAttemptStore,
+            @Value("${security.login-attempts.max-attempts}") int maxAttempts,
+            @Value("${security.login-attempts.ip-max-attempts}") int ipMaxAttempts,
+            @Value("${security.login-attempts.window-minutes}") long windowMinutes,
+            @Value("${security.login-attempts.lockout-duration-minutes}") long lockoutDurationMinutes
+    ) {
+        this.loginAttemptStore = loginAttemptStore;
+        this.maxAttempts = maxAttempts;
+        this.ipMaxAttempts = ipMaxAttempts;
+        this.windowMillis = TimeUnit.MINUTES.toMillis(windowMinutes);
+        this.lockTimeDuration = TimeUnit.MINUTES.toMillis(lockoutDurationMinutes);
     }
 
-    // private static final int MAX_ATTEMPTS = 5;
-    // private static final long LOCK_TIME_DURATION = 15 * 60 * 1000; // 15 minutes
-
-    private final ConcurrentHashMap<String, AttemptInfo> attemptsCache = new ConcurrentHashMap<>();
-
-    public void loginSucceeded(String key) {
-        attemptsCache.remove(key);
+    /**
+     * Only the account counter is reset, a success must not clear the failures other accounts caused from the same IP
+     */
+    public void loginSucceeded(String email) {
+        loginAttemptStore.reset(accountKey(email));
     }
 
-    public void loginFailed(String key) {
-        AttemptInfo attempts = attemptsCache.getOrDefault(
-                key,
-                new AttemptInfo(0, null)
-        );
-
-        int currentAttempts = attempts.getAttempts() + 1;
-
-        if (currentAttempts >= MAX_ATTEMPTS) {
-            attemptsCache.put(key, new AttemptInfo(currentAttempts, System.currentTimeMillis()));
-        } else {
-            attemptsCache.put(key, new AttemptInfo(currentAttempts, null));
+    public void loginFailed(String email, String ipAddress) {
+        var accountWindow = loginAttemptStore.recordFailure(accountKey(email), windowMillis, maxAttempts, lockTimeDuration);
+        if (ipAddress != null) {
+            loginAttemptStore.recordFailure(IP_KEY_PREFIX + ipAddress, windowMillis, ipMaxAttempts, lockTimeDuration);
         }
+        log.debug("Login failed for {} from {}, ~{} failures in the current window",
+                email, ipAddress, Math.round(accountWindow.estimate(System.currentTimeMillis(), windowMillis)));
     }
 
-    public boolean isBlocked(String key) {
-        AttemptInfo attempts = attemptsCache.get(key);
-
-        if (attempts == null) return false;
-        if (attempts.getAttempts() < MAX_ATTEMPTS) return false;
-        if (attempts.getLockedTime() == null) return false;
-
-        long unlockTime = attempts.getLockedTime() + LOCK_TIME_DURATION;
-
-        if (System.currentTimeMillis() > unlockTime) {
-            attemptsCache.remove(key);
-            return false;
-        }
+    public boolean isBlocked(String email) {
+        return isLocked(accountKey(email));
+    }
 
-        return true;
+    public boolean isIpBlocked(String ipAddress) {
+        return ipAddress != null && isLocked(IP_KEY_PREFIX + ipAddress);
     }
+
     public long getLockTimeDuration() {
-        return LOCK_TIME_DURATION;
+        return lockTimeDuration;
     }
 
     public int getMaxAttempts() {
-        return MAX_ATTEMPTS;
+        return maxAttempts;
+    }
+
+    public int getIpMaxAttempts() {
+        return ipMaxAttempts;
+    }
+
+    private boolean isLocked(String key) {
+        LoginAttemptWindow window = loginAttemptStore.get(key);
+        return window != null && window.isLocked(System.currentTimeMillis());
     }
 
+    private static String accountKey(String email) {
+        return ACCOUNT_KEY_PREFIX + (email != null ? email.toLowerCase() : "");
+    }
 }
@@ -0,0 +1,22 @@
+package com.devtiro.realestate.security;
+
+/**
+ * Storage of login failure windows by key (account or client IP)
+ *
+ * Implementations must apply recordFailure atomically per key. The in-memory store is the default,
+ * a shared backend can implement this interface for deployments with several instances.
+ */
+public interface LoginAttemptStore {
+
+    /**
+     * Count one failure for the key and return the updated window
+     */
+    LoginAttemptWindow recordFailure(String key, long windowMillis, int maxAttempts, long lockoutMillis);
+
+    /**
+     * Current window of the key, or null if there were no recent failures
+     */
+    LoginAttemptWindow get(String key);
+
+    void reset(String key);
+}
@@ -0,0 +1,61 @@
+package com.devtiro.realestate.security;
+
+/**
+ * Sliding-window failure counter of one login attempt key
+ *
+ * Approximates a sliding window with two aligned fixed windows: the failures of the previous window
+ * are weighted by how much of it still overlaps the sliding window. This needs constant memory per key,
+ * unlike keeping one timestamp per failure. Instances are immutable, stores replace them atomically.
+ */
+public record LoginAttemptWindow(long windowStart, int currentCount, int previousCount, long lockedUntil) {
+
+    /**
+     * Window state after one more failure at the given time, locked once the estimate reaches maxAttempts
+     */
+    public static LoginAttemptWindow recordFailure(LoginAttemptWindow window, long nowMillis,
+                                                   long windowMillis, int maxAttempts, long lockoutMillis) {
+        LoginAttemptWindow advanced = advance(window, nowMillis, windowMillis);
+        LoginAttemptWindow failed = new LoginAttemptWindow(
+                advanced.windowStart,
+                advanced.currentCount + 1,
+                advanced.previousCount,
+                advanced.lockedUntil
+        );
+
+        if (failed.estimate(nowMillis, windowMillis) >= maxAttempts && !failed.isLocked(nowMillis)) {
+            return new LoginAttemptWindow(failed.windowStart, failed.currentCount, failed.previousCount, nowMillis + lockoutMillis);
+        }
+        return failed;
+    }
+
+    public boolean isLocked(long nowMillis) {
+        return lockedUntil > nowMillis;
+    }
+
+    /**
+     * Estimated number of failures within the last windowMillis
+     */
+    public double estimate(long nowMillis, long windowMillis) {
+        double previousWeight = Math.max(0, windowMillis - (nowMillis - windowStart)) / (double) windowMillis;
+        return previousCount * previousWeight + currentCount;
+    }
+
+    /**
+     * Time until the entry holds no information anymore: the lock is over and both windows have slid past
+     */
+    public long remainingLifetime(long nowMillis, long windowMillis) {
+        return Math.max(0, Math.max(lockedUntil, windowStart + 2 * windowMillis) - nowMillis);
+    }
+
+    private static LoginAttemptWindow advance(LoginAttemptWindow window, long nowMillis, long windowMillis) {
+        long alignedStart = nowMillis - Math.floorMod(nowMillis, windowMillis);
+        if (window == null) {
+            return new LoginAttemptWindow(alignedStart, 0, 0, 0);
+        }
+        if (alignedStart == window.windowStart) {
+            return window;
+        }
+        int previous = alignedStart - window.windowStart == windowMillis ? window.currentCount : 0;
+        return new LoginAttemptWindow(alignedStart, 0, previous, window.lockedUntil);
+    }
+}
@@ -1,19 +1,33 @@
 package com.devtiro.realestate.security;
 
+import com.devtiro.realestate.domain.entities.ViewingStatus;
+import com.github.benmanes.caffeine.cache.Cache;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Service for tracking custom application metrics
  * Uses Micrometer for metrics collection and exposition
+ *
+ * Meters are registered once, recording is a map lookup and an increment. Tag values come from a fixed
+ * vocabulary per metric, values outside of it are counted as "other", so callers can't create new series.
  */
 @Service
-@RequiredArgsConstructor
 public class MetricsService {
 
     private final MeterRegistry meterRegistry;
@@ -25,39 +39,268 @@ public class MetricsService {
     private static final String METRIC_AUTH_TOKEN_REFRESH = "auth.token.refresh";
     private static final String METRIC_AUTH_FAILED_ATTEMPTS = "auth.failed.attempts";
     private static final String METRIC_AUTH_ACCOUNT_LOCKED = "auth.account.locked";
-    
+
     // Performance Metrics
     private static final String METRIC_AUTH_DURATION = "auth.duration";
     private static final String METRIC_TOKEN_GENERATION_DURATION = "auth.token.generation.duration";
-    
+
     // Security Metrics
     private static final String METRIC_INVALID_TOKEN = "auth.invalid.token";
     private static final String METRIC_EXPIRED_TOKEN = "auth.expired.token";
     private static final String METRIC_PASSWORD_VALIDATION_FAILURE = "auth.password.validation.failure";
 
+    // Rate Limiting Metrics
+    private static final String METRIC_RATE_LIMIT = "http.rate.limit";
+
+    // Password Hashing Metrics
+    private static final String METRIC_PASSWORD_HASH_DURATION = "auth.password.hash.duration";
+    private static final String METRIC_PASSWORD_HASH_WAIT = "auth.password.hash.wait";
+    private static final String METRIC_PASSWORD_HASH_REJECTED = "auth.password.hash.rejected";
+    private static final String METRIC_PASSWORD_HASH_QUEUE = "auth.password.hash.queue";
+    private static final String METRIC_PASSWORD_HASH_ACTIVE = "auth.password.hash.active";
+    private static final String METRIC_PASSWORD_REHASH = "auth.password.rehash";
+
+    // Security Audit Metrics
+    private static final String METRIC_SECURITY_AUDIT_DROPPED = "security.audit.dropped";
+    private static final String METRIC_SECURITY_AUDIT_SINK_FAILURES = "security.audit.sink.failures";
+    private static final String METRIC_SECURITY_AUDIT_BUFFER = "security.audit.buffer";
+
+    // Search Metrics
+    private static final String METRIC_LISTING_SEARCH_PHASE = "listing.search.phase";
+
+    // Elasticsearch Client Metrics
+    private static final String METRIC_ES_CLIENT_REQUEST = "elasticsearch.client.request";
+    private static final String METRIC_ES_TOOK = "elasticsearch.took";
+    private static final String METRIC_ES_HTTP_ROUND_TRIP = "elasticsearch.http.round.trip";
+    private static final String METRIC_ES_HTTP_REQUEST_SIZE = "elasticsearch.http.request.size";
+    private static final String METRIC_ES_HTTP_RESPONSE_SIZE = "elasticsearch.http.response.size";
+    private static final String METRIC_ES_HTTP_POOL = "elasticsearch.http.pool";
+
+    // Cache Metrics
+    private static final String METRIC_CACHE_HIT_RATIO = "cache.hit.ratio";
+    private static final String CACHE_MANAGER = "cacheManager";
+
+    // Background Job Metrics
+    private static final String METRIC_VIEWING_SWEEP = "viewing.status.sweep";
+    private static final String METRIC_VIEWING_SWEEP_DURATION = "viewing.status.sweep.duration";
+    private static final String METRIC_SNAPSHOT_PROPAGATION = "viewing.snapshot.propagation";
+
+    // Tag vocabularies, anything else is recorded as OTHER
+    private static final String OTHER = "other";
+    private static final List<String> REGISTRATION_FAILURE_REASONS = List.of(
+            "username_exists", "email_exists", "admin_role");
+    private static final List<String> LOGIN_SUCCESS_REASONS = List.of(
+            "email_and_password");
+    private static final List<String> LOGIN_FAILURE_REASONS = List.of(
+            "invalid_credentials", "account_disabled", "account_locked", "ip_blocked");
+    private static final List<String> TOKEN_REFRESH_FAILURE_REASONS = List.of(
+            "invalid_token", "token_expired", "not_refresh_token", "user_not_found", "token_mismatch",
+            "token_reuse", "concurrent_refresh");
+    private static final List<String> INVALID_TOKEN_REASONS = List.of(
+            "invalid_signature", "malformed", "unsupported", "empty", "invalid", "revoked");
+    private static final List<String> PASSWORD_VALIDATION_FAILURE_REASONS = List.of(
+            PasswordValidator.REASON_TOO_SHORT, PasswordValidator.REASON_TOO_WEAK);
+    private static final List<String> PASSWORD_HASH_OPERATIONS = List.of(
+            "encode", "matches");
+    public static final List<String> ELASTICSEARCH_HTTP_OPERATIONS = List.of(
+            "_search", "_count", "_bulk", "_doc", "_create", "_update", "_mget", "_update_by_query",
+            "_delete_by_query", "_refresh", "_mapping", "_settings", "_index_template", "_cluster", "index");
+    private static final List<String> VIEWING_STATUSES = Arrays.stream(ViewingStatus.values())
+            .map(Enum::name)
+            .toList();
+    private static final List<String> SECURITY_AUDIT_EVENT_TYPES = Arrays.stream(SecurityAuditEventType.values())
+            .map(Enum::name)
+            .toList();
+
+    private final Counter registrationSuccess;
+    private final Map<String, Counter> registrationFailures;
+    private final Map<String, Counter> loginSuccesses;
+    private final Map<String, Counter> loginFailures;
+    private final Timer loginDuration;
+    private final Counter logouts;
+    private final Counter tokenRefreshSuccess;
+    private final Map<String, Counter> tokenRefreshFailures;
+    private final Timer tokenGenerationDuration;
+    private final Counter failedAttempts;
+    private final Counter accountsLocked;
+    private final Map<String, Counter> invalidTokens;
+    private final Counter expiredTokens;
+    private final Map<String, Counter> passwordValidationFailures;
+    private final Map<String, Counter> viewingSweepUpdated;
+    private final Map<String, Counter> viewingSweepConflicts;
+    private final Map<String, Counter> viewingSweepFailures;
+    private final Map<String, Timer> viewingSweepDurations;
+    private final Counter snapshotPropagationUpdated;
+    private final Counter snapshotPropagationFailures;
+    private final Map<String, Timer> passwordHashDurations;
+    private final Map<String, Timer> passwordHashWaits;
+    private final Map<String, Counter> passwordHashRejections;
+    private final Counter passwordRehashes;
+    private final Map<String, Counter> securityAuditDropped;
+    private final Timer searchQueryBuildDuration;
+    private final Timer searchElasticsearchDuration;
+    private final Timer searchMappingDuration;
+    private final Timer searchDistanceDuration;
+    private final Map<String, Timer> elasticsearchRoundTrips;
+    private final Map<String, DistributionSummary> elasticsearchRequestSizes;
+    private final Map<String, DistributionSummary> elasticsearchResponseSizes;
+
+    // Tag values bounded by configuration or beans rather than code, registered on first use
+    private final Map<String, Counter> rateLimitAllowed = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rateLimitRejected = new ConcurrentHashMap<>();
+    private final Map<String, Counter> securityAuditSinkFailures = new ConcurrentHashMap<>();
+    // Endpoint ids of the Elasticsearch client API
+    private final Map<String, Timer> elasticsearchRequestSuccesses = new ConcurrentHashMap<>();
+    private final Map<String, Timer> elasticsearchRequestFailures = new ConcurrentHashMap<>();
+    private final Map<String, Timer> elasticsearchTook = new ConcurrentHashMap<>();
+
+    public MetricsService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+
+        registrationSuccess = Counter.builder(METRIC_AUTH_REGISTRATION)
+                .tag("status", "success")
+                .description("Total number of successful user registrations")
+                .register(meterRegistry);
+        registrationFailures = meters(REGISTRATION_FAILURE_REASONS, reason -> Counter.builder(METRIC_AUTH_REGISTRATION)
+                .tag("status", "failure")
+                .tag("reason", reason)
+                .description("Total number of failed user registrations")
+                .register(meterRegistry));
+
+        loginSuccesses = meters(LOGIN_SUCCESS_REASONS, reason -> Counter.builder(METRIC_AUTH_LOGIN)
+                .tag("status", "success")
+                .tag("reason", reason)
+                .description("Total number of successful login attempts")
+                .register(meterRegistry));
+        loginFailures = meters(LOGIN_FAILURE_REASONS, reason -> Counter.builder(METRIC_AUTH_LOGIN)
+                .tag("status", "failure")
+                .tag("reason", reason)
+                .description("Total number of failed login attempts")
+                .register(meterRegistry));
+        loginDuration = Timer.builder(METRIC_AUTH_DURATION)
+                .tag("operation", "login")
+                .description("Time taken to process login requests")
+                .register(meterRegistry);
+
+        logouts = Counter.builder(METRIC_AUTH_LOGOUT)
+                .description("Total number of logout events")
+                .register(meterRegistry);
+
+        tokenRefreshSuccess = Counter.builder(METRIC_AUTH_TOKEN_REFRESH)
+                .tag("status", "success")
+                .description("Total number of successful token refreshes")
+                .register(meterRegistry);
+        tokenRefreshFailures = meters(TOKEN_REFRESH_FAILURE_REASONS, reason -> Counter.builder(METRIC_AUTH_TOKEN_REFRESH)
+                .tag("status", "failure")
+                .tag("reason", reason)
+                .description("Total number of failed token refreshes")
+                .register(meterRegistry));
+        tokenGenerationDuration = Timer.builder(METRIC_TOKEN_GENERATION_DURATION)
+                .description("Time taken to generate JWT tokens")
+                .register(meterRegistry);
+
+        failedAttempts = Counter.builder(METRIC_AUTH_FAILED_ATTEMPTS)
+                .description("Number of failed login attempts")
+                .register(meterRegistry);
+        accountsLocked = Counter.builder(METRIC_AUTH_ACCOUNT_LOCKED)
+                .description("Number of account lockouts")
+                .register(meterRegistry);
+        invalidTokens = meters(INVALID_TOKEN_REASONS, reason -> Counter.builder(METRIC_INVALID_TOKEN)
+                .tag("reason", reason)
+                .description("Number of invalid token attempts")
+                .register(meterRegistry));
+        expiredTokens = Counter.builder(METRIC_EXPIRED_TOKEN)
+                .description("Number of expired token attempts")
+                .register(meterRegistry);
+        passwordValidationFailures = meters(PASSWORD_VALIDATION_FAILURE_REASONS, reason -> Counter.builder(METRIC_PASSWORD_VALIDATION_FAILURE)
+                .tag("reason", reason)
+                .description("Number of password validation failures")
+                .register(meterRegistry));
+
+        viewingSweepUpdated = meters(VIEWING_STATUSES, status -> Counter.builder(METRIC_VIEWING_SWEEP)
+                .tag("status", status)
+                .tag("result", "updated")
+                .description("Number of viewings transitioned by the status sweeper")
+                .register(meterRegistry));
+        viewingSweepConflicts = meters(VIEWING_STATUSES, status -> Counter.builder(METRIC_VIEWING_SWEEP)
+                .tag("status", status)
+                .tag("result", "conflict")
+                .description("Number of viewings skipped by the status sweeper due to version conflicts")
+                .register(meterRegistry));
+        viewingSweepFailures = meters(VIEWING_STATUSES, status -> Counter.builder(METRIC_VIEWING_SWEEP)
+                .tag("status", status)
+                .tag("result", "failure")
+                .description("Number of failed viewing status sweeps")
+                .register(meterRegistry));
+        viewingSweepDurations = meters(VIEWING_STATUSES, status -> Timer.builder(METRIC_VIEWING_SWEEP_DURATION)
+                .tag("status", status)
+                .description("Time taken by one viewing status sweep")
+                .register(meterRegistry));
+        snapshotPropagationUpdated = Counter.builder(METRIC_SNAPSHOT_PROPAGATION)
+                .tag("result", "updated")
+                .description("Number of viewings updated with a new listing snapshot")
+                .register(meterRegistry);
+        snapshotPropagationFailures = Counter.builder(METRIC_SNAPSHOT_PROPAGATION)
+                .tag("result", "failure")
+                .description("Number of failed listing snapshot propagations")
+                .register(meterRegistry);
+
+        passwordHashDurations = meters(PASSWORD_HASH_OPERATIONS, operation -> Timer.builder(METRIC_PASSWORD_HASH_DURATION)
+                .tag("operation", operation)
+                .description("Time taken to hash or verify a password")
+                .register(meterRegistry));
+        passwordHashWaits = meters(PASSWORD_HASH_OPERATIONS, operation -> Timer.builder(METRIC_PASSWORD_HASH_WAIT)
+                .tag("operation", operation)
+                .description("Time password hashing tasks wait for a hashing thread")
+                .register(meterRegistry));
+        passwordHashRejections = meters(PASSWORD_HASH_OPERATIONS, operation -> Counter.builder(METRIC_PASSWORD_HASH_REJECTED)
+                .tag("operation", operation)
+                .description("Number of password hashing tasks rejected by the full executor")
+                .register(meterRegistry));
+        passwordRehashes = Counter.builder(METRIC_PASSWORD_REHASH)
+                .description("Number of passwords re-hashed with a changed strength on login")
+                .register(meterRegistry);
+
+        securityAuditDropped = meters(SECURITY_AUDIT_EVENT_TYPES, type -> Counter.builder(METRIC_SECURITY_AUDIT_DROPPED)
+                .tag("type", type)
+                .description("Security audit events dropped because the writer fell behind")
+                .register(meterRegistry));
+
+        searchQueryBuildDuration = searchPhaseTimer("query_build");
+        searchElasticsearchDuration = searchPhaseTimer("elasticsearch");
+        searchMappingDuration = searchPhaseTimer("mapping");
+        searchDistanceDuration = searchPhaseTimer("distance");
+
+        elasticsearchRoundTrips = meters(ELASTICSEARCH_HTTP_OPERATIONS, operation -> Timer.builder(METRIC_ES_HTTP_ROUND_TRIP)
+                .tag("operation", operation)
+                .description("Time from sending an Elasticsearch request to receiving the response headers")
+                .register(meterRegistry));
+        elasticsearchRequestSizes = meters(ELASTICSEARCH_HTTP_OPERATIONS, operation -> DistributionSummary.builder(METRIC_ES_HTTP_REQUEST_SIZE)
+                .tag("operation", operation)
+                .baseUnit("bytes")
+                .description("Size of Elasticsearch request bodies")
+                .register(meterRegistry));
+        elasticsearchResponseSizes = meters(ELASTICSEARCH_HTTP_OPERATIONS, operation -> DistributionSummary.builder(METRIC_ES_HTTP_RESPONSE_SIZE)
+                .tag("operation", operation)
+                .baseUnit("bytes")
+                .description("Size of Elasticsearch response bodies")
+                .register(meterRegistry));
+    }
+
     // ============ Registration Metrics ============
 
     /**
      * Record successful registration
      */
     public void recordRegistrationSuccess() {
-        Counter.builder(METRIC_AUTH_REGISTRATION)
-                .tag("status", "success")
-                .description("Total number of successful user registrations")
-                .register(meterRegistry)
-                .increment();
+        registrationSuccess.increment();
     }
 
     /**
      * Record failed registration
      */
     public void recordRegistrationFailure(String reason) {
-        Counter.builder(METRIC_AUTH_REGISTRATION)
-                .tag("status", "failure")
-                .tag("reason", reason)
-                .description("Total number of failed user registrations")
-                .register(meterRegistry)
-                .increment();
+        lookup(registrationFailures, reason).increment();
     }
 
     // ============ Login Metrics ============
@@ -66,35 +309,21 @@ public class MetricsService {
      * Record successful login
      */
     public void recordLoginSuccess(String reason) {
-        Counter.builder(METRIC_AUTH_LOGIN)
-                .tag("status", "success")
-                .tag("reason", reason)
-                .description("Total number of successful login attempts")
-                .register(meterRegistry)
-                .increment();
+        lookup(loginSuccesses, reason).increment();
     }
 
     /**
      * Record failed login
      */
     public void recordLoginFailure(String reason) {
-        Counter.builder(METRIC_AUTH_LOGIN)
-                .tag("status", "failure")
-                .tag("reason", reason)
-                .description("Total number of failed login attempts")
-                .register(meterRegistry)
-                .increment();
+        lookup(loginFailures, reason).increment();
     }
 
     /**
      * Record login duration
      */
-    public void recordLoginDuration(long durationMillis) {
-        Timer.builder(METRIC_AUTH_DURATION)
-                .tag("operation", "login")
-                .description("Time taken to process login requests")
-                .register(meterRegistry)
-                .record(durationMillis, TimeUnit.MILLISECONDS);
+    public void recordLoginDuration(long durationNanos) {
+        loginDuration.record(durationNanos, TimeUnit.NANOSECONDS);
     }
 
     // ============ Logout Metrics ============
@@ -103,10 +332,7 @@ public class MetricsService {
      * Record logout event
      */
     public void recordLogout() {
-        Counter.builder(METRIC_AUTH_LOGOUT)
-                .description("Total number of logout events")
-                .register(meterRegistry)
-                .increment();
+        logouts.increment();
     }
 
     // ============ Token Refresh Metrics ============
@@ -115,105 +341,337 @@ public class MetricsService {
      * Record successful token refresh
      */
     public void recordTokenRefreshSuccess() {
-        Counter.builder(METRIC_AUTH_TOKEN_REFRESH)
-                .tag("status", "success")
-                .description("Total number of successful token refreshes")
-                .register(meterRegistry)
-                .increment();
+        tokenRefreshSuccess.increment();
     }
 
     /**
      * Record failed token refresh
      */
     public void recordTokenRefreshFailure(String reason) {
-        Counter.builder(METRIC_AUTH_TOKEN_REFRESH)
-                .tag("status", "failure")
-                .tag("reason", reason)
-                .description("Total number of failed token refreshes")
-                .register(meterRegistry)
-                .increment();
+        lookup(tokenRefreshFailures, reason).increment();
     }
 
     /**
      * Record token generation duration
      */
-    public void recordTokenGenerationDuration(long durationMillis) {
-        Timer.builder(METRIC_TOKEN_GENERATION_DURATION)
-                .description("Time taken to generate JWT tokens")
-                .register(meterRegistry)
-                .record(durationMillis, TimeUnit.MILLISECONDS);
+    public void recordTokenGenerationDuration(long durationNanos) {
+        tokenGenerationDuration.record(durationNanos, TimeUnit.NANOSECONDS);
     }
 
     // ============ Security Metrics ============
 
     /**
      * Record failed login attempt (for rate limiting tracking)
+     * Not tagged per user, the security audit log has the users
      */
-    public void recordFailedAttempt(String email) {
-        Counter.builder(METRIC_AUTH_FAILED_ATTEMPTS)
-                .tag("email", sanitizeEmail(email))
-                .description("Number of failed login attempts per user")
-                .register(meterRegistry)
-                .increment();
+    public void recordFailedAttempt() {
+        failedAttempts.increment();
     }
 
     /**
      * Record account lockout
      */
-    public void recordAccountLocked(String email) {
-        Counter.builder(METRIC_AUTH_ACCOUNT_LOCKED)
-                .tag("email", sanitizeEmail(email))
-                .description("Number of account lockouts")
-                .register(meterRegistry)
-                .increment();
+    public void recordAccountLocked() {
+        accountsLocked.increment();
     }
 
     /**
      * Record invalid token attempt
      */
     public void recordInvalidToken(String reason) {
-        Counter.builder(METRIC_INVALID_TOKEN)
-                .tag("reason", reason)
-                .description("Number of invalid token attempts")
-                .register(meterRegistry)
-                .increment();
+        lookup(invalidTokens, reason).increment();
     }
 
     /**
      * Record expired token attempt
      */
     public void recordExpiredToken() {
-        Counter.builder(METRIC_EXPIRED_TOKEN)
-                .description("Number of expired token attempts")
-                .register(meterRegistry)
-                .increment();
+        expiredTokens.increment();
     }
 
     /**
      * Record password validation failure
+     *
+     * @param reason one of the PasswordValidator reasons
      */
     public void recordPasswordValidationFailure(String reason) {
-        Counter.builder(METRIC_PASSWORD_VALIDATION_FAILURE)
-                .tag("reason", reason)
-                .description("Number of password validation failures")
-                .register(meterRegistry)
+        lookup(passwordValidationFailures, reason).increment();
+    }
+
+    // ============ Search Metrics ============
+
+    /**
+     * Record where the time of one listing search went, the mapping excludes the distance computation
+     */
+    public void recordSearchPhases(long queryBuildNanos, long elasticsearchNanos, long mappingNanos) {
+        searchQueryBuildDuration.record(queryBuildNanos, TimeUnit.NANOSECONDS);
+        searchElasticsearchDuration.record(elasticsearchNanos, TimeUnit.NANOSECONDS);
+        searchMappingDuration.record(mappingNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record the distance computation of all hits of one geo search
+     */
+    public void recordSearchDistanceDuration(long durationNanos) {
+        searchDistanceDuration.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // ============ Elasticsearch Client Metrics ============
+
+    /**
+     * Record one call through the Elasticsearch transport, including serialization and deserialization
+     *
+     * @param endpoint id of the client endpoint, e.g. "search" or "bulk"
+     */
+    public void recordElasticsearchRequest(String endpoint, boolean success, long durationNanos) {
+        Map<String, Timer> timers = success ? elasticsearchRequestSuccesses : elasticsearchRequestFailures;
+        timers.computeIfAbsent(endpoint, name -> Timer.builder(METRIC_ES_CLIENT_REQUEST)
+                .tag("endpoint", name)
+                .tag("outcome", success ? "success" : "failure")
+                .description("Client side time of Elasticsearch calls")
+                .register(meterRegistry))
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record the took the cluster reported for a search, bulk or by-query call
+     */
+    public void recordElasticsearchTook(String endpoint, long tookMillis) {
+        elasticsearchTook.computeIfAbsent(endpoint, name -> Timer.builder(METRIC_ES_TOOK)
+                .tag("endpoint", name)
+                .description("Server side time Elasticsearch reported for a request")
+                .register(meterRegistry))
+                .record(tookMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Record the network round trip of one Elasticsearch HTTP exchange
+     *
+     * @param operation one of ELASTICSEARCH_HTTP_OPERATIONS
+     */
+    public void recordElasticsearchRoundTrip(String operation, long durationNanos) {
+        lookup(elasticsearchRoundTrips, operation).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record the request body size of one Elasticsearch HTTP exchange
+     */
+    public void recordElasticsearchRequestSize(String operation, long bytes) {
+        lookup(elasticsearchRequestSizes, operation).record(bytes);
+    }
+
+    /**
+     * Record the response body size of one Elasticsearch HTTP exchange
+     */
+    public void recordElasticsearchResponseSize(String operation, long bytes) {
+        lookup(elasticsearchResponseSizes, operation).record(bytes);
+    }
+
+    /**
+     * Register gauges for the Elasticsearch HTTP connection pool
+     */
+    public void registerElasticsearchConnectionPool(Supplier<Number> leased, Supplier<Number> pending,
+                                                    Supplier<Number> available, Supplier<Number> max) {
+        Gauge.builder(METRIC_ES_HTTP_POOL, leased)
+                .tag("state", "leased")
+                .description("Elasticsearch connections currently in use")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_ES_HTTP_POOL, pending)
+                .tag("state", "pending")
+                .description("Elasticsearch requests waiting for a connection")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_ES_HTTP_POOL, available)
+                .tag("state", "available")
+                .description("Idle Elasticsearch connections kept alive")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_ES_HTTP_POOL, max)
+                .tag("state", "max")
+                .description("Maximum number of Elasticsearch connections")
+                .register(meterRegistry);
+    }
+
+    // ============ Cache Metrics ============
+
+    /**
+     * Bind the Caffeine stats of a cache, gets, evictions, load time and size, plus its hit ratio
+     * Tagged like Spring Boot's binding of the cache manager's caches, so both bind the same meters
+     */
+    public void registerCache(String name, Cache<?, ?> cache) {
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name, "cache.manager", CACHE_MANAGER);
+        Gauge.builder(METRIC_CACHE_HIT_RATIO, cache, c -> c.stats().hitRate())
+                .tag("cache", name)
+                .tag("cache.manager", CACHE_MANAGER)
+                .description("Share of cache lookups that found an entry")
+                .register(meterRegistry);
+    }
+
+    // ============ Background Job Metrics ============
+
+    /**
+     * Record the outcome of one viewing status sweep
+     */
+    public void recordViewingStatusSweep(String targetStatus, long updated, long versionConflicts) {
+        lookup(viewingSweepUpdated, targetStatus).increment(updated);
+        lookup(viewingSweepConflicts, targetStatus).increment(versionConflicts);
+    }
+
+    /**
+     * Record failed viewing status sweep
+     */
+    public void recordViewingStatusSweepFailure(String targetStatus) {
+        lookup(viewingSweepFailures, targetStatus).increment();
+    }
+
+    /**
+     * Record viewing status sweep duration
+     */
+    public void recordViewingStatusSweepDuration(String targetStatus, long durationNanos) {
+        lookup(viewingSweepDurations, targetStatus).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record viewings updated by a listing snapshot propagation
+     */
+    public void recordSnapshotPropagation(long updated) {
+        snapshotPropagationUpdated.increment(updated);
+    }
+
+    /**
+     * Record failed listing snapshot propagation
+     */
+    public void recordSnapshotPropagationFailure() {
+        snapshotPropagationFailures.increment();
+    }
+
+    // ============ Password Hashing Metrics ============
+
+    /**
+     * Record time spent computing a password hash or verification on the hashing executor
+     */
+    public void recordPasswordHashDuration(String operation, long durationNanos) {
+        lookup(passwordHashDurations, operation).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record time a password hashing task waited in the executor queue
+     */
+    public void recordPasswordHashWait(String operation, long durationNanos) {
+        lookup(passwordHashWaits, operation).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record password hashing task rejected because the executor queue was full
+     */
+    public void recordPasswordHashRejected(String operation) {
+        lookup(passwordHashRejections, operation).increment();
+    }
+
+    /**
+     * Record password re-hashed with the configured strength on login
+     */
+    public void recordPasswordRehash() {
+        passwordRehashes.increment();
+    }
+
+    /**
+     * Expose queue depth and busy threads of the password hashing executor
+     */
+    public void registerPasswordHashingExecutor(ThreadPoolExecutor executor) {
+        Gauge.builder(METRIC_PASSWORD_HASH_QUEUE, executor, e -> e.getQueue().size())
+                .description("Password hashing tasks waiting for a hashing thread")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PASSWORD_HASH_ACTIVE, executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashing threads currently hashing")
+                .register(meterRegistry);
+    }
+
+    // ============ Rate Limiting Metrics ============
+
+    /**
+     * Record request admitted by a rate limited route
+     *
+     * @param route name of a configured rate-limit route
+     */
+    public void recordRateLimitAllowed(String route) {
+        rateLimitAllowed.computeIfAbsent(route, name -> Counter.builder(METRIC_RATE_LIMIT)
+                .tag("route", name)
+                .tag("result", "allowed")
+                .description("Requests admitted by the rate limiter")
+                .register(meterRegistry))
+                .increment();
+    }
+
+    /**
+     * Record request rejected with 429 by the rate limiter
+     *
+     * @param route name of a configured rate-limit route
+     */
+    public void recordRateLimitRejected(String route) {
+        rateLimitRejected.computeIfAbsent(route, name -> Counter.builder(METRIC_RATE_LIMIT)
+                .tag("route", name)
+                .tag("result", "rejected")
+                .description("Requests rejected by the rate limiter")
+                .register(meterRegistry))
                 .increment();
     }
 
+    // ============ Security Audit Metrics ============
+
+    /**
+     * Record audit event dropped because the audit buffer was full
+     */
+    public void recordSecurityAuditDropped(String eventType) {
+        lookup(securityAuditDropped, eventType).increment();
+    }
+
+    /**
+     * Record audit events a sink failed to write
+     *
+     * @param sink simple class name of the sink bean
+     */
+    public void recordSecurityAuditSinkFailure(String sink, int events) {
+        securityAuditSinkFailures.computeIfAbsent(sink, name -> Counter.builder(METRIC_SECURITY_AUDIT_SINK_FAILURES)
+                .tag("sink", name)
+                .description("Security audit events a sink failed to write")
+                .register(meterRegistry))
+                .increment(events);
+    }
+
+    /**
+     * Register gauges for the fill level of the audit buffer
+     */
+    public void registerSecurityAuditBuffer(Supplier<Number> size, int capacity) {
+        Gauge.builder(METRIC_SECURITY_AUDIT_BUFFER, size)
+                .tag("state", "queued")
+                .description("Security audit events waiting for the writer")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_SECURITY_AUDIT_BUFFER, () -> capacity)
+                .tag("state", "capacity")
+                .description("Security audit events the buffer can hold")
+                .register(meterRegistry);
+    }
+
     // ============ Helper Methods ============
 
     /**
-     * Sanitize email for metric tags (remove @ and . for Prometheus compatibility)
+     * Register a meter per tag value, plus one for values outside the vocabulary
      */
-    private String sanitizeEmail(String email) {
-        if (email == null) {
-            return "unknown";
-        }
-        // Remove domain for privacy and Prometheus compatibility
-        int atIndex = email.indexOf('@');
-        if (atIndex > 0) {
-            return email.substring(0, atIndex) + "_redacted";
-        }
-        return email.replaceAll("[^a-zA-Z0-9_]", "_");
+    private static <M> Map<String, M> meters(List<String> tagValues, Function<String, M> register) {
+        Map<String, M> meters = new HashMap<>();
+        tagValues.forEach(value -> meters.put(value, register.apply(value)));
+        meters.put(OTHER, register.apply(OTHER));
+        return Map.copyOf(meters);
+    }
+
+    private Timer searchPhaseTimer(String phase) {
+        return Timer.builder(METRIC_LISTING_SEARCH_PHASE)
+                .tag("phase", phase)
+                .description("Time taken by one phase of a listing search")
+                .register(meterRegistry);
+    }
+
+    private static <M> M lookup(Map<String, M> meters, String tagValue) {
+        M meter = tagValue != null ? meters.get(tagValue) : null;
+        return meter != null ? meter : meters.get(OTHER);
     }
 }
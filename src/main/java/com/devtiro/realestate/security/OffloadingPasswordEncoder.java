@@ -0,0 +1,31 @@
+package com.devtiro.realestate.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * PasswordEncoder that hands the BCrypt work to the PasswordHashingService executor
+ *
+ * upgradeEncoding reports hashes made with another strength, so the DaoAuthenticationProvider
+ * re-hashes the password on the next successful login.
+ */
+@RequiredArgsConstructor
+public class OffloadingPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordHashingService passwordHashingService;
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return passwordHashingService.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return passwordHashingService.matches(rawPassword, encodedPassword);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return passwordHashingService.needsRehash(encodedPassword);
+    }
+}
@@ -0,0 +1,129 @@
+package com.devtiro.realestate.security;
+
+import com.devtiro.realestate.exceptions.ServiceBusyException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs BCrypt hashing and verification on a dedicated, CPU-sized executor
+ *
+ * Hashing is deliberately slow CPU work, running it on the request threads lets a login burst occupy
+ * every Tomcat worker. Here at most one hash per hashing thread runs at a time, a bounded queue absorbs
+ * short bursts and anything beyond that is rejected right away with a ServiceBusyException (503)
+ * instead of piling up behind the CPU.
+ */
+@Slf4j
+@Service
+public class PasswordHashingService {
+
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}$");
+
+    private final MetricsService metricsService;
+    private final BCryptPasswordEncoder bCryptPasswordEncoder;
+    private final int strength;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor executor;
+
+    public PasswordHashingService(
+            MetricsService metricsService,
+            @Value("${security.password.bcrypt-strength}") int strength,
+            @Value("${security.password.hashing.threads}") int threads,
+            @Value("${security.password.hashing.queue-capacity}") int queueCapacity,
+            @Value("${security.password.hashing.timeout-millis}") long timeoutMillis
+    ) {
+        this.metricsService = metricsService;
+        this.bCryptPasswordEncoder = new BCryptPasswordEncoder(strength);
+        this.strength = strength;
+        this.timeoutMillis = timeoutMillis;
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        metricsService.registerPasswordHashingExecutor(executor);
+
+        log.info("Password hashing executor started with {} threads and a queue of {}", poolSize, queueCapacity);
+    }
+
+    public String encode(CharSequence rawPassword) {
+        return execute("encode", () -> bCryptPasswordEncoder.encode(rawPassword));
+    }
+
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute("matches", () -> bCryptPasswordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Whether the hash was made with a different strength than the configured one, in either direction
+     */
+    public boolean needsRehash(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        return matcher.matches() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    private <T> T execute(String operation, Callable<T> task) {
+        long submittedAt = System.nanoTime();
+
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                metricsService.recordPasswordHashWait(operation, startedAt - submittedAt);
+                try {
+                    return task.call();
+                } finally {
+                    metricsService.recordPasswordHashDuration(operation, System.nanoTime() - startedAt);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            metricsService.recordPasswordHashRejected(operation);
+            log.warn("Password hashing queue is full, rejecting {} request", operation);
+            throw new ServiceBusyException("Too many authentication requests. Please try again shortly.");
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            metricsService.recordPasswordHashRejected(operation);
+            log.warn("Password hashing {} request timed out after {} ms", operation, timeoutMillis);
+            throw new ServiceBusyException("Too many authentication requests. Please try again shortly.");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Password hashing was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
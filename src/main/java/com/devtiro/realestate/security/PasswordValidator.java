@@ -8,6 +8,10 @@ import java.util.regex.Pattern;
 @Component
 public class PasswordValidator {
 
+    // Bounded reasons for metrics, the messages are meant for users
+    public static final String REASON_TOO_SHORT = "too_short";
+    public static final String REASON_TOO_WEAK = "too_weak";
+
     @Value("${security.password.min-length}")
     private static int passwordMinLength;
 
@@ -31,4 +35,10 @@ public class PasswordValidator {
         }
     }
 
+    /**
+     * Metrics reason of a password rejected by {@link #validate(String)}
+     */
+    public String violationReason(String password) {
+        return password == null || password.length() < passwordMinLength ? REASON_TOO_SHORT : REASON_TOO_WEAK;
+    }
 }
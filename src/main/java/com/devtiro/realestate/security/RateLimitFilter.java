@@ -0,0 +1,120 @@
+package com.devtiro.realestate.security;
+
+import com.devtiro.realestate.config.RateLimitProperties;
+import com.devtiro.realestate.domain.entities.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Token bucket rate limiting for the routes configured under rate-limit.routes
+ *
+ * Runs after the JwtAuthenticationFilter so routes can be limited per user. Buckets live in a bounded
+ * Caffeine cache and are dropped when idle, requests over the limit get 429 with Retry-After.
+ */
+@Slf4j
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimitProperties properties;
+    private final ClientIpResolver clientIpResolver;
+    private final MetricsService metricsService;
+    private final List<CompiledRoute> routes;
+    private final Cache<String, TokenBucket> buckets;
+
+    private record CompiledRoute(RateLimitProperties.Route route, PathPattern pathPattern) {
+
+        boolean matches(HttpServletRequest request, PathContainer path) {
+            return (route.getMethod() == null || route.getMethod().equalsIgnoreCase(request.getMethod()))
+                    && pathPattern.matches(path);
+        }
+    }
+
+    public RateLimitFilter(RateLimitProperties properties, ClientIpResolver clientIpResolver, MetricsService metricsService) {
+        this.properties = properties;
+        this.clientIpResolver = clientIpResolver;
+        this.metricsService = metricsService;
+        this.routes = properties.getRoutes().stream()
+                .map(route -> new CompiledRoute(route, PathPatternParser.defaultInstance.parse(route.getPath())))
+                .toList();
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxBuckets())
+                .expireAfterAccess(properties.getBucketIdleTimeout())
+                .build();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled() || routes.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+
+        for (CompiledRoute compiledRoute : routes) {
+            if (!compiledRoute.matches(request, path)) {
+                continue;
+            }
+
+            RateLimitProperties.Route route = compiledRoute.route();
+            long now = System.nanoTime();
+            TokenBucket bucket = buckets.get(
+                    route.getName() + ":" + resolveKey(route, request),
+                    key -> new TokenBucket(route.getCapacity(), route.getRefillTokens(), route.getRefillPeriod().toNanos(), now)
+            );
+
+            long waitNanos = bucket.tryConsume(now);
+            if (waitNanos > 0) {
+                metricsService.recordRateLimitRejected(route.getName());
+                log.debug("Rate limit of route {} exceeded for request: {}", route.getName(), request.getRequestURI());
+                reject(response, waitNanos);
+                return;
+            }
+            metricsService.recordRateLimitAllowed(route.getName());
+            break;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private String resolveKey(RateLimitProperties.Route route, HttpServletRequest request) {
+        if (route.getKeyBy() == RateLimitProperties.KeyBy.USER) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.getPrincipal() instanceof User user) {
+                return "user:" + user.getId();
+            }
+        }
+        return "ip:" + clientIpResolver.resolve(request);
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = TokenBucket.retryAfterSeconds(waitNanos);
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write(
+                "{\"code\":\"TOO_MANY_REQUESTS\",\"message\":\"Too many requests. Please try again in "
+                        + retryAfterSeconds + " seconds.\"}"
+        );
+    }
+}
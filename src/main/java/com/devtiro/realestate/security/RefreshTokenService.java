@@ -0,0 +1,225 @@
+package com.devtiro.realestate.security;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import com.devtiro.realestate.domain.entities.RefreshTokenSession;
+import com.devtiro.realestate.domain.entities.RefreshTokenStatus;
+import com.devtiro.realestate.domain.entities.User;
+import com.devtiro.realestate.exceptions.InvalidRefreshTokenException;
+import com.devtiro.realestate.repositories.RefreshTokenSessionRepository;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refresh token sessions with rotation and reuse detection
+ *
+ * Only SHA-256 hashes of refresh tokens are stored, one small document per token. A login starts a new
+ * family (one per device), so users can stay logged in on several devices. A refresh writes two small
+ * documents instead of the whole user: the presented token becomes ROTATED and its successor is added.
+ * A ROTATED or REVOKED token showing up again means it was stolen or replayed, the family is revoked.
+ *
+ * Refresh tokens issued before sessions existed were stored on the user document and carry no sid. While one is
+ * still the token stored there, it is exchanged once for a new family instead of forcing a new login.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+
+    private final RefreshTokenSessionRepository sessionRepository;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ElasticsearchClient elasticsearchClient;
+    private final JwtService jwtService;
+    private final SecurityAuditService securityAuditService;
+    private final MetricsService metricsService;
+
+    /**
+     * Refresh token together with the family it belongs to
+     */
+    public record IssuedRefreshToken(String token, String familyId) {
+    }
+
+    /**
+     * Start a new session family, e.g. on login or registration
+     */
+    public IssuedRefreshToken startSession(User user, String ipAddress) {
+        return issue(user.getId(), user.getEmail(), UUID.randomUUID().toString(), ipAddress);
+    }
+
+    /**
+     * Stored refresh token of a user document written before sessions existed
+     */
+    record LegacyRefreshToken(String refreshToken) {
+    }
+
+    /**
+     * Exchange a verified refresh token for its successor in the same family
+     *
+     * @param user owner of the token, looked up by its subject
+     * @throws InvalidRefreshTokenException if the token is unknown, expired, already rotated or revoked
+     */
+    public IssuedRefreshToken rotate(String refreshToken, Claims claims, User user, String ipAddress) {
+        String email = claims.getSubject();
+        var storedSession = sessionRepository.findById(TokenHasher.sha256(refreshToken));
+        if (storedSession.isEmpty() && claims.get("sid") == null) {
+            return migrateLegacyToken(refreshToken, claims, user, ipAddress);
+        }
+        RefreshTokenSession session = storedSession
+                .orElseThrow(() -> {
+                    securityAuditService.logTokenRefreshFailure(email, "Unknown refresh token", ipAddress);
+                    metricsService.recordTokenRefreshFailure("token_mismatch");
+                    return new InvalidRefreshTokenException("Refresh token does not match");
+                });
+
+        if (session.getStatus() != RefreshTokenStatus.ACTIVE) {
+            revokeFamily(session.getFamilyId());
+            securityAuditService.logSuspiciousActivity(email, "Reuse of a " + session.getStatus() + " refresh token, session revoked", ipAddress);
+            metricsService.recordTokenRefreshFailure("token_reuse");
+            throw new InvalidRefreshTokenException("Refresh token has already been used");
+        }
+
+        if (session.getExpiresAt().isBefore(LocalDateTime.now())) {
+            securityAuditService.logTokenRefreshFailure(email, "Token expired", ipAddress);
+            metricsService.recordTokenRefreshFailure("token_expired");
+            throw new InvalidRefreshTokenException("Refresh token has expired");
+        }
+
+        session.setStatus(RefreshTokenStatus.ROTATED);
+        session.setRotatedAt(LocalDateTime.now());
+        try {
+            sessionRepository.save(session);
+        } catch (OptimisticLockingFailureException e) {
+            // Another refresh with the same token won the race, its successor is the valid one
+            securityAuditService.logTokenRefreshFailure(email, "Concurrent refresh", ipAddress);
+            metricsService.recordTokenRefreshFailure("concurrent_refresh");
+            throw new InvalidRefreshTokenException("Refresh token has already been used");
+        }
+
+        return issue(session.getUserId(), email, session.getFamilyId(), ipAddress);
+    }
+
+    /**
+     * Revoke every active token of a session family, e.g. on logout or detected reuse
+     */
+    public void revokeFamily(String familyId) {
+        if (familyId == null) {
+            return;
+        }
+
+        var activeSessions = sessionRepository.findAllByFamilyIdAndStatus(familyId, RefreshTokenStatus.ACTIVE);
+        activeSessions.forEach(session -> session.setStatus(RefreshTokenStatus.REVOKED));
+        sessionRepository.saveAll(activeSessions);
+
+        log.info("Revoked refresh token family: {}", familyId);
+    }
+
+    /**
+     * Expired tokens can't be used or reused anymore, their documents are not needed
+     */
+    @Scheduled(
+            initialDelayString = "${jwt.refresh-token-sessions.cleanup-interval-minutes}",
+            fixedDelayString = "${jwt.refresh-token-sessions.cleanup-interval-minutes}",
+            timeUnit = TimeUnit.MINUTES
+    )
+    public void deleteExpiredSessions() {
+        try {
+            sessionRepository.deleteAllByExpiresAtBefore(LocalDateTime.now());
+        } catch (Exception e) {
+            log.error("Failed to delete expired refresh token sessions", e);
+        }
+    }
+
+    /**
+     * Start a family for a refresh token issued before sessions existed, if it is still the one of the user
+     *
+     * The legacy token is recorded as ROTATED in the new family, created only if absent, so presenting it again
+     * is detected as reuse and two concurrent refreshes with it can't both succeed.
+     */
+    private IssuedRefreshToken migrateLegacyToken(String refreshToken, Claims claims, User user, String ipAddress) {
+        String email = claims.getSubject();
+        if (!refreshToken.equals(findLegacyRefreshToken(user.getId()))) {
+            // Replaced by a later login, cleared by a logout, or the user was saved since the upgrade
+            securityAuditService.logTokenRefreshFailure(email, "Unknown refresh token", ipAddress);
+            metricsService.recordTokenRefreshFailure("token_mismatch");
+            throw new InvalidRefreshTokenException("Refresh token does not match");
+        }
+
+        String familyId = UUID.randomUUID().toString();
+        RefreshTokenSession legacySession = RefreshTokenSession.builder()
+                .id(TokenHasher.sha256(refreshToken))
+                .familyId(familyId)
+                .userId(user.getId())
+                .email(email)
+                .status(RefreshTokenStatus.ROTATED)
+                .ipAddress(ipAddress)
+                .expiresAt(LocalDateTime.ofInstant(claims.getExpiration().toInstant(), ZoneId.systemDefault()))
+                .rotatedAt(LocalDateTime.now())
+                .build();
+        IndexQuery createQuery = new IndexQueryBuilder()
+                .withId(legacySession.getId())
+                .withObject(legacySession)
+                .withOpType(IndexQuery.OpType.CREATE)
+                .build();
+
+        try {
+            elasticsearchOperations.bulkIndex(List.of(createQuery), RefreshTokenSession.class);
+        } catch (BulkFailureException e) {
+            BulkFailureException.FailureDetails details = e.getFailedDocuments().get(legacySession.getId());
+            if (details == null || details.status() == null || details.status() != 409) {
+                throw e;
+            }
+            securityAuditService.logTokenRefreshFailure(email, "Concurrent refresh", ipAddress);
+            metricsService.recordTokenRefreshFailure("concurrent_refresh");
+            throw new InvalidRefreshTokenException("Refresh token has already been used");
+        }
+
+        log.info("Moved refresh token issued before sessions into family: {}", familyId);
+        return issue(user.getId(), email, familyId, ipAddress);
+    }
+
+    /**
+     * The refreshToken field is no longer mapped, it is only in documents not saved since the upgrade
+     */
+    private String findLegacyRefreshToken(String userId) {
+        try {
+            var response = elasticsearchClient.get(get -> get
+                            .index(elasticsearchOperations.getIndexCoordinatesFor(User.class).getIndexName())
+                            .id(userId)
+                            .sourceIncludes("refreshToken"),
+                    LegacyRefreshToken.class);
+            return response.found() && response.source() != null ? response.source().refreshToken() : null;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read the stored refresh token", e);
+        }
+    }
+
+    private IssuedRefreshToken issue(String userId, String email, String familyId, String ipAddress) {
+        String token = jwtService.generateRefreshToken(email, familyId);
+
+        sessionRepository.save(RefreshTokenSession.builder()
+                .id(TokenHasher.sha256(token))
+                .familyId(familyId)
+                .userId(userId)
+                .email(email)
+                .status(RefreshTokenStatus.ACTIVE)
+                .ipAddress(ipAddress)
+                .expiresAt(LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(jwtService.getJwtRefreshTokenExpirationMs())))
+                .build());
+
+        return new IssuedRefreshToken(token, familyId);
+    }
+}
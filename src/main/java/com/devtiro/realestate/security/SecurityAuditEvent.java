@@ -0,0 +1,19 @@
+package com.devtiro.realestate.security;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Structured security audit event, created on the request thread and formatted by the sinks
+ *
+ * @param user email of the user, null when unknown
+ * @param details event specific attributes, e.g. reason or attempts
+ */
+public record SecurityAuditEvent(
+        Instant timestamp,
+        SecurityAuditEventType type,
+        String user,
+        String ipAddress,
+        Map<String, String> details
+) {
+}
@@ -0,0 +1,28 @@
+package com.devtiro.realestate.security;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Kinds of security audit events, warnings are logged at WARN level
+ */
+@Getter
+@RequiredArgsConstructor
+public enum SecurityAuditEventType {
+    REGISTRATION_SUCCESS(false),
+    REGISTRATION_FAILURE(true),
+    LOGIN_SUCCESS(false),
+    LOGIN_FAILURE(true),
+    ACCOUNT_LOCKED(true),
+    TOKEN_REFRESH_SUCCESS(false),
+    TOKEN_REFRESH_FAILURE(true),
+    LOGOUT(false),
+    PASSWORD_CHANGE(false),
+    SUSPICIOUS_ACTIVITY(true),
+    INVALID_TOKEN_ATTEMPT(true),
+    EXPIRED_TOKEN_ATTEMPT(true),
+    ACCESS_DENIED(true),
+    PASSWORD_VALIDATION_FAILURE(true);
+
+    private final boolean warning;
+}
@@ -0,0 +1,109 @@
+package com.devtiro.realestate.security;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands security audit events from request threads to the sinks
+ *
+ * Publishing only stores the event in a lock-free ring buffer, a single background thread drains it in
+ * batches and does the formatting and I/O. When the sinks fall behind and the buffer is full, events are
+ * dropped and counted instead of slowing down requests.
+ */
+@Slf4j
+@Component
+public class SecurityAuditPipeline {
+
+    private final AuditRingBuffer<SecurityAuditEvent> buffer;
+    private final List<SecurityAuditSink> sinks;
+    private final MetricsService metricsService;
+    private final int batchSize;
+    private final long idleWaitNanos;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public SecurityAuditPipeline(
+            List<SecurityAuditSink> sinks,
+            MetricsService metricsService,
+            @Value("${security.audit.buffer-capacity}") int bufferCapacity,
+            @Value("${security.audit.batch-size}") int batchSize,
+            @Value("${security.audit.idle-wait-millis}") long idleWaitMillis
+    ) {
+        this.buffer = new AuditRingBuffer<>(bufferCapacity);
+        this.sinks = sinks;
+        this.metricsService = metricsService;
+        this.batchSize = batchSize;
+        this.idleWaitNanos = TimeUnit.MILLISECONDS.toNanos(idleWaitMillis);
+    }
+
+    @PostConstruct
+    void start() {
+        metricsService.registerSecurityAuditBuffer(buffer::size, buffer.capacity());
+        running = true;
+        writer = Thread.ofPlatform()
+                .name("security-audit-writer")
+                .daemon(true)
+                .start(this::drainLoop);
+    }
+
+    /**
+     * Queue an event for the sinks, never blocks
+     *
+     * @return false if the event was dropped because the buffer is full
+     */
+    public boolean publish(SecurityAuditEvent event) {
+        if (buffer.offer(event)) {
+            return true;
+        }
+        metricsService.recordSecurityAuditDropped(event.type().name());
+        return false;
+    }
+
+    /**
+     * Stop the writer after the events published so far are written
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private void drainLoop() {
+        List<SecurityAuditEvent> batch = new ArrayList<>(batchSize);
+        while (running || buffer.size() > 0) {
+            SecurityAuditEvent event;
+            while (batch.size() < batchSize && (event = buffer.poll()) != null) {
+                batch.add(event);
+            }
+
+            if (batch.isEmpty()) {
+                if (!running) {
+                    // A producer claimed a slot but has not stored its event, it is lost with the shutdown
+                    break;
+                }
+                LockSupport.parkNanos(idleWaitNanos);
+                continue;
+            }
+
+            for (SecurityAuditSink sink : sinks) {
+                try {
+                    sink.write(batch);
+                } catch (Exception e) {
+                    metricsService.recordSecurityAuditSinkFailure(sink.getClass().getSimpleName(), batch.size());
+                    log.error("Security audit sink {} failed to write {} events", sink.getClass().getSimpleName(), batch.size(), e);
+                }
+            }
+            batch.clear();
+        }
+    }
+}
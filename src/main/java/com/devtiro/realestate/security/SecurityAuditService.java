@@ -1,138 +1,123 @@
 package com.devtiro.realestate.security;
 
-import lombok.extern.slf4j.Slf4j;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.Instant;
+import java.util.Map;
 
 /**
  * Service for logging security-related events
  * Provides audit trail for authentication, authorization, and security incidents
+ *
+ * Only builds a structured event on the calling thread, formatting and writing happen on the
+ * background writer of the {@link SecurityAuditPipeline}.
  */
-@Slf4j
 @Service
+@RequiredArgsConstructor
 public class SecurityAuditService {
 
-    private static final DateTimeFormatter TIMESTAMP_FORMATTER = 
-        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private final SecurityAuditPipeline securityAuditPipeline;
 
     /**
      * Log successful user registration
      */
     public void logRegistrationSuccess(String email, String username, String ipAddress) {
-        log.info("SECURITY_AUDIT | EVENT=REGISTRATION_SUCCESS | user={} | username={} | ip={} | timestamp={}", 
-                email, username, ipAddress, getCurrentTimestamp());
+        publish(SecurityAuditEventType.REGISTRATION_SUCCESS, email, ipAddress, Map.of("username", String.valueOf(username)));
     }
 
     /**
      * Log failed registration attempt
      */
     public void logRegistrationFailure(String email, String reason, String ipAddress) {
-        log.warn("SECURITY_AUDIT | EVENT=REGISTRATION_FAILURE | user={} | reason={} | ip={} | timestamp={}", 
-                email, reason, ipAddress, getCurrentTimestamp());
+        publish(SecurityAuditEventType.REGISTRATION_FAILURE, email, ipAddress, Map.of("reason", String.valueOf(reason)));
     }
 
     /**
      * Log successful login
      */
     public void logLoginSuccess(String email, String ipAddress) {
-        log.info("SECURITY_AUDIT | EVENT=LOGIN_SUCCESS | user={} | ip={} | timestamp={}", 
-                email, ipAddress, getCurrentTimestamp());
+        publish(SecurityAuditEventType.LOGIN_SUCCESS, email, ipAddress, Map.of());
     }
 
     /**
      * Log failed login attempt
      */
     public void logLoginFailure(String email, String reason, String ipAddress) {
-        log.warn("SECURITY_AUDIT | EVENT=LOGIN_FAILURE | user={} | reason={} | ip={} | timestamp={}", 
-                email, reason, ipAddress, getCurrentTimestamp());
+        publish(SecurityAuditEventType.LOGIN_FAILURE, email, ipAddress, Map.of("reason", String.valueOf(reason)));
     }
 
     /**
      * Log account lockout due to too many failed attempts
      */
     public void logAccountLocked(String email, int attemptCount, String ipAddress) {
-        log.warn("SECURITY_AUDIT | EVENT=ACCOUNT_LOCKED | user={} | attempts={} | ip={} | timestamp={}", 
-                email, attemptCount, ipAddress, getCurrentTimestamp());
+        publish(SecurityAuditEventType.ACCOUNT_LOCKED, email, ipAddress, Map.of("attempts", String.valueOf(attemptCount)));
     }
 
     /**
      * Log successful token refresh
      */
     public void logTokenRefreshSuccess(String email, String ipAddress) {
-        log.info("SECURITY_AUDIT | EVENT=TOKEN_REFRESH_SUCCESS | user={} | ip={} | timestamp={}", 
-                email, ipAddress, getCurrentTimestamp());
+        publish(SecurityAuditEventType.TOKEN_REFRESH_SUCCESS, email, ipAddress, Map.of());
     }
 
     /**
      * Log failed token refresh attempt
      */
     public void logTokenRefreshFailure(String email, String reason, String ipAddress) {
-        log.warn("SECURITY_AUDIT | EVENT=TOKEN_REFRESH_FAILURE | user={} | reason={} | ip={} | timestamp={}", 
-                email, reason, ipAddress, getCurrentTimestamp());
+        publish(SecurityAuditEventType.TOKEN_REFRESH_FAILURE, email, ipAddress, Map.of("reason", String.valueOf(reason)));
     }
 
     /**
      * Log user logout
      */
     public void logLogout(String email, String ipAddress) {
-        log.info("SECURITY_AUDIT | EVENT=LOGOUT | user={} | ip={} | timestamp={}", 
-                email, ipAddress, getCurrentTimestamp());
+        publish(SecurityAuditEventType.LOGOUT, email, ipAddress, Map.of());
     }
 
     /**
      * Log password change
      */
     public void logPasswordChange(String email, String ipAddress) {
-        log.info("SECURITY_AUDIT | EVENT=PASSWORD_CHANGE | user={} | ip={} | timestamp={}", 
-                email, ipAddress, getCurrentTimestamp());
+        publish(SecurityAuditEventType.PASSWORD_CHANGE, email, ipAddress, Map.of());
     }
 
     /**
      * Log suspicious activity
      */
     public void logSuspiciousActivity(String email, String activity, String ipAddress) {
-        log.warn("SECURITY_AUDIT | EVENT=SUSPICIOUS_ACTIVITY | user={} | activity={} | ip={} | timestamp={}", 
-                email, activity, ipAddress, getCurrentTimestamp());
+        publish(SecurityAuditEventType.SUSPICIOUS_ACTIVITY, email, ipAddress, Map.of("activity", String.valueOf(activity)));
     }
 
     /**
      * Log invalid JWT token usage attempt
      */
     public void logInvalidTokenAttempt(String reason, String ipAddress) {
-        log.warn("SECURITY_AUDIT | EVENT=INVALID_TOKEN_ATTEMPT | reason={} | ip={} | timestamp={}", 
-                reason, ipAddress, getCurrentTimestamp());
+        publish(SecurityAuditEventType.INVALID_TOKEN_ATTEMPT, null, ipAddress, Map.of("reason", String.valueOf(reason)));
     }
 
     /**
      * Log expired token usage attempt
      */
     public void logExpiredTokenAttempt(String email, String ipAddress) {
-        log.warn("SECURITY_AUDIT | EVENT=EXPIRED_TOKEN_ATTEMPT | user={} | ip={} | timestamp={}", 
-                email, ipAddress, getCurrentTimestamp());
+        publish(SecurityAuditEventType.EXPIRED_TOKEN_ATTEMPT, email, ipAddress, Map.of());
     }
 
     /**
      * Log access denied event
      */
     public void logAccessDenied(String email, String resource, String ipAddress) {
-        log.warn("SECURITY_AUDIT | EVENT=ACCESS_DENIED | user={} | resource={} | ip={} | timestamp={}", 
-                email, resource, ipAddress, getCurrentTimestamp());
+        publish(SecurityAuditEventType.ACCESS_DENIED, email, ipAddress, Map.of("resource", String.valueOf(resource)));
     }
 
     /**
      * Log password validation failure
      */
     public void logPasswordValidationFailure(String email, String reason, String ipAddress) {
-        log.warn("SECURITY_AUDIT | EVENT=PASSWORD_VALIDATION_FAILURE | user={} | reason={} | ip={} | timestamp={}", 
-                email, reason, ipAddress, getCurrentTimestamp());
+        publish(SecurityAuditEventType.PASSWORD_VALIDATION_FAILURE, email, ipAddress, Map.of("reason", String.valueOf(reason)));
     }
 
-    /**
-     * Get current timestamp as formatted string
-     */
-    private String getCurrentTimestamp() {
-        return LocalDateTime.now().format(TIMESTAMP_FORMATTER);
+    private void publish(SecurityAuditEventType type, String user, String ipAddress, Map<String, String> details) {
+        securityAuditPipeline.publish(new SecurityAuditEvent(Instant.now(), type, user, ipAddress, details));
     }
 }
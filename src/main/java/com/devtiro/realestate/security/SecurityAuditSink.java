@@ -0,0 +1,14 @@
+package com.devtiro.realestate.security;
+
+import java.util.List;
+
+/**
+ * Destination of security audit events, called by the background writer only
+ */
+public interface SecurityAuditSink {
+
+    /**
+     * Write a batch of events in publication order
+     */
+    void write(List<SecurityAuditEvent> events);
+}
@@ -0,0 +1,59 @@
+package com.devtiro.realestate.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * In-memory record of subjects whose access tokens were revoked
+ *
+ * Maps an email to the epoch millisecond of the revocation, every access token of that subject
+ * issued up to that millisecond is rejected. Tokens carry their issue time in milliseconds (iat_ms),
+ * a new login right after a revocation gets a token that is accepted. Entries only need to outlive the access token lifetime,
+ * after that every token issued before the revocation has expired on its own.
+ *
+ * Revocations are made by the user change events this node receives, with the local transport only changes
+ * made on this node.
+ */
+@Slf4j
+@Component
+public class SubjectRevocationRegistry {
+
+    private final Cache<String, Long> revokedSubjects;
+
+    public SubjectRevocationRegistry(
+            @Value("${jwt.access-token-expiration}") long accessTokenExpirationMs,
+            @Value("${jwt.stateless-principal.revocation-registry-size}") long maximumSize
+    ) {
+        this.revokedSubjects = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(accessTokenExpirationMs))
+                .build();
+    }
+
+    /**
+     * Reject all access tokens of the subject issued until now
+     */
+    public void revoke(String subject) {
+        revokedSubjects.put(subject, System.currentTimeMillis());
+        log.debug("Revoked access tokens of subject: {}", subject);
+    }
+
+    /**
+     * Whether a token of the subject issued at the given time has been revoked
+     * Tokens without an issue time are treated as revoked once the subject has a revocation entry.
+     *
+     * @param issuedAtMillis see JwtService.issuedAtMillis
+     */
+    public boolean isRevoked(String subject, Long issuedAtMillis) {
+        Long revokedAtMillis = revokedSubjects.getIfPresent(subject);
+        if (revokedAtMillis == null) {
+            return false;
+        }
+        return issuedAtMillis == null || issuedAtMillis <= revokedAtMillis;
+    }
+}
@@ -0,0 +1,59 @@
+package com.devtiro.realestate.security;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket
+ *
+ * Implemented as a generic cell rate algorithm: instead of a token count and a refill timestamp the
+ * bucket keeps a single "theoretical arrival time", the moment it would be completely full again.
+ * Every permit pushes it one emission interval further, a request is allowed while it is at most
+ * (capacity - 1) intervals ahead of now. One CAS on one AtomicLong per request, no refill thread.
+ */
+public final class TokenBucket {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final AtomicLong theoreticalArrivalTime;
+
+    /**
+     * @param capacity      maximum burst size
+     * @param refillTokens  tokens added per refill period
+     * @param refillPeriodNanos length of the refill period
+     */
+    public TokenBucket(long capacity, long refillTokens, long refillPeriodNanos, long nowNanos) {
+        if (capacity <= 0 || refillTokens <= 0 || refillPeriodNanos <= 0) {
+            throw new IllegalArgumentException("Capacity, refill tokens and refill period must be positive");
+        }
+        this.emissionIntervalNanos = Math.max(1, refillPeriodNanos / refillTokens);
+        this.burstToleranceNanos = emissionIntervalNanos * (capacity - 1);
+        this.theoreticalArrivalTime = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Take one token
+     *
+     * @return 0 if the request is allowed, otherwise the nanoseconds until a token is available
+     */
+    public long tryConsume(long nowNanos) {
+        while (true) {
+            long current = theoreticalArrivalTime.get();
+            long arrival = Math.max(current, nowNanos);
+            long wait = arrival - nowNanos - burstToleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrivalTime.compareAndSet(current, arrival + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Retry-After value for a wait returned by tryConsume, whole seconds rounded up and at least 1
+     */
+    public static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+}
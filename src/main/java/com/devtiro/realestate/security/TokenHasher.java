@@ -0,0 +1,28 @@
+package com.devtiro.realestate.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * SHA-256 fingerprints of tokens, so raw tokens never have to be kept in memory or stored
+ */
+public final class TokenHasher {
+
+    private TokenHasher() {
+    }
+
+    /**
+     * SHA-256 of the token, Base64 (URL-safe, unpadded) encoded
+     */
+    public static String sha256(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.devtiro.realestate.security;
+
+import com.devtiro.realestate.domain.entities.RevokedToken;
+import com.devtiro.realestate.repositories.RevokedTokenRepository;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Revocation list for access tokens
+ *
+ * Revocations are persisted in the revoked_tokens index by jti, a Bloom filter in front of it answers
+ * the common case (token not revoked) from memory. Only a Bloom filter hit, i.e. a revoked token or a
+ * rare false positive, costs an Elasticsearch lookup. Revocations made by other instances are added every few
+ * seconds by querying the index for entries newer than the last sync, a token revoked on another instance is
+ * accepted here until then. The filter is rebuilt from the index at startup and periodically, only to drop
+ * expired entries and resize it.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TokenRevocationService {
+
+    // Entries become searchable after the index refresh and carry the clock of the instance that wrote them,
+    // each sync looks back this much further so neither makes it miss one. Adding an entry again is harmless.
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    @Value("${jwt.revocation.expected-revocations}")
+    private long expectedRevocations;
+
+    @Value("${jwt.revocation.false-positive-probability}")
+    private double falsePositiveProbability;
+
+    private final AtomicLong bloomFilterHits = new AtomicLong();
+
+    // null until the first rebuild finished, lookups go straight to Elasticsearch until then
+    private volatile BloomFilter revokedTokenFilter;
+
+    // Filter being filled by a running rebuild, revocations made meanwhile go into both filters
+    private volatile BloomFilter rebuildingFilter;
+
+    // Start of the last sync, null until the first rebuild finished
+    private volatile LocalDateTime lastSyncedAt;
+
+    /**
+     * Revoke a verified access token until its expiration
+     */
+    public void revoke(String token, Claims claims, String reason) {
+        String tokenId = claims.getId();
+        if (tokenId == null) {
+            log.warn("Cannot revoke a token without jti for subject: {}", claims.getSubject());
+            return;
+        }
+
+        revokedTokenRepository.save(RevokedToken.builder()
+                .id(tokenId)
+                .subject(claims.getSubject())
+                .reason(reason)
+                .expiresAt(LocalDateTime.ofInstant(claims.getExpiration().toInstant(), ZoneId.systemDefault()))
+                .build());
+
+        addToFilters(tokenId);
+        verifiedTokenCache.invalidate(token);
+
+        log.info("Revoked access token {} of subject: {}", tokenId, claims.getSubject());
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null) {
+            return false;
+        }
+
+        BloomFilter filter = revokedTokenFilter;
+        if (filter != null && !filter.mightContain(tokenId)) {
+            return false;
+        }
+
+        bloomFilterHits.incrementAndGet();
+        return revokedTokenRepository.existsById(tokenId);
+    }
+
+    /**
+     * Add the revocations persisted since the last sync, mostly those made by other instances
+     */
+    @Scheduled(
+            fixedDelayString = "${jwt.revocation.sync-interval-seconds}",
+            initialDelayString = "${jwt.revocation.sync-interval-seconds}",
+            timeUnit = TimeUnit.SECONDS
+    )
+    public void syncRecentRevocations() {
+        LocalDateTime since = lastSyncedAt;
+        if (since == null) {
+            return;
+        }
+
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            try (var revokedTokens = revokedTokenRepository.streamAllByCreatedDateAfter(since.minus(SYNC_OVERLAP))) {
+                revokedTokens.forEach(revokedToken -> addToFilters(revokedToken.getId()));
+            }
+            lastSyncedAt = now;
+        } catch (Exception e) {
+            log.error("Failed to sync recent token revocations, retrying from the last sync", e);
+        }
+    }
+
+    /**
+     * Build a fresh filter from the persisted, not yet expired revocations and swap it in
+     *
+     * Tokens revoked on this instance while the rebuild runs are added to both filters.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+            fixedDelayString = "${jwt.revocation.rebuild-interval-minutes}",
+            initialDelayString = "${jwt.revocation.rebuild-interval-minutes}",
+            timeUnit = TimeUnit.MINUTES
+    )
+    public synchronized void rebuild() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            revokedTokenRepository.deleteAllByExpiresAtBefore(now);
+
+            long activeRevocations = revokedTokenRepository.countByExpiresAtAfter(now);
+            BloomFilter filter = BloomFilter.create(Math.max(expectedRevocations, activeRevocations * 2), falsePositiveProbability);
+            rebuildingFilter = filter;
+
+            try (var revokedTokens = revokedTokenRepository.streamAllByExpiresAtAfter(now)) {
+                revokedTokens.forEach(revokedToken -> filter.put(revokedToken.getId()));
+            }
+
+            revokedTokenFilter = filter;
+            // Later rebuilds leave it alone, syncs running meanwhile add to both filters
+            if (lastSyncedAt == null) {
+                lastSyncedAt = now;
+            }
+            log.info("Rebuilt token revocation filter with {} entries, {} lookups fell through to Elasticsearch since the last rebuild",
+                    activeRevocations, bloomFilterHits.getAndSet(0));
+        } catch (Exception e) {
+            log.error("Failed to rebuild token revocation filter, keeping the previous one", e);
+        } finally {
+            rebuildingFilter = null;
+        }
+    }
+
+    private void addToFilters(String tokenId) {
+        BloomFilter filter = revokedTokenFilter;
+        if (filter != null) {
+            filter.put(tokenId);
+        }
+        BloomFilter nextFilter = rebuildingFilter;
+        if (nextFilter != null) {
+            nextFilter.put(tokenId);
+        }
+    }
+}
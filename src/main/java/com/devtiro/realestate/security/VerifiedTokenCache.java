@@ -0,0 +1,92 @@
+package com.devtiro.realestate.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of already verified access tokens
+ *
+ * Keyed by the SHA-256 of the token so raw tokens are never kept in memory, each entry expires
+ * exactly at the token's exp claim. A hit lets the authentication filter skip the HMAC check and
+ * claim parsing for clients that send the same token over and over.
+ */
+@Slf4j
+@Component
+public class VerifiedTokenCache {
+
+    private final Cache<String, Claims> verifiedTokens;
+
+    public VerifiedTokenCache(@Value("${jwt.verified-token-cache.maximum-size}") long maximumSize) {
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new ExpireAtTokenExpiration())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Verified claims of the token, or null if the token was not verified yet or has expired
+     */
+    public Claims get(String token) {
+        Claims claims = verifiedTokens.getIfPresent(TokenHasher.sha256(token));
+        if (claims != null && claims.getExpiration().before(new Date())) {
+            return null;
+        }
+        return claims;
+    }
+
+    /**
+     * Remember a token whose signature has been verified, tokens without exp are never cached
+     */
+    public void put(String token, Claims claims) {
+        if (claims.getExpiration() != null) {
+            verifiedTokens.put(TokenHasher.sha256(token), claims);
+        }
+    }
+
+    /**
+     * Forget a single token, e.g. when it is revoked
+     */
+    public void invalidate(String token) {
+        verifiedTokens.invalidate(TokenHasher.sha256(token));
+    }
+
+    /**
+     * Forget all tokens of a subject, e.g. on logout
+     */
+    public void invalidateSubject(String subject) {
+        verifiedTokens.asMap().values().removeIf(claims -> subject.equals(claims.getSubject()));
+        log.debug("Invalidated verified tokens of subject: {}", subject);
+    }
+
+    public long size() {
+        return verifiedTokens.estimatedSize();
+    }
+
+    private static final class ExpireAtTokenExpiration implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            long remainingMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
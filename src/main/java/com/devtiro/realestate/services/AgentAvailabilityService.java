@@ -0,0 +1,18 @@
+package com.devtiro.realestate.services;
+
+import com.devtiro.realestate.domain.dto.AgentAvailabilityRequest;
+import com.devtiro.realestate.domain.dto.AgentAvailabilityResponseDto;
+import com.devtiro.realestate.domain.dto.AvailableSlotsResponseDto;
+import com.devtiro.realestate.domain.entities.User;
+
+import java.time.LocalDateTime;
+
+public interface AgentAvailabilityService {
+
+    AgentAvailabilityResponseDto getAvailability(String agentId);
+
+    AgentAvailabilityResponseDto updateAvailability(AgentAvailabilityRequest request, User agent);
+
+    AvailableSlotsResponseDto getAvailableSlots(String propertyListingId, LocalDateTime from, LocalDateTime to);
+
+}
@@ -3,21 +3,19 @@ package com.devtiro.realestate.services;
 import com.devtiro.realestate.domain.dto.AuthResponse;
 import com.devtiro.realestate.domain.dto.LoginRequest;
 import com.devtiro.realestate.domain.dto.RegisterRequest;
+import com.devtiro.realestate.domain.entities.Role;
 import com.devtiro.realestate.domain.entities.User;
 import com.devtiro.realestate.exceptions.InvalidRefreshTokenException;
-import com.devtiro.realestate.repositories.UserRepository;
+import com.devtiro.realestate.exceptions.UserAlreadyExistsException;
 import com.devtiro.realestate.security.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
-
 /**
  * Service handling user authentication operations
  */
@@ -26,9 +24,11 @@ import java.time.LocalDateTime;
 @RequiredArgsConstructor
 public class AuthService {
 
-    private final UserRepository userRepository;
+    private final UserUniqueKeyService userUniqueKeyService;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
+    private final TokenRevocationService tokenRevocationService;
+    private final RefreshTokenService refreshTokenService;
     private final AuthenticationManager authenticationManager;
     private final PasswordValidator passwordValidator;
     private final LoginAttemptService loginAttemptService;
@@ -44,22 +44,15 @@ public class AuthService {
             passwordValidator.validate(request.getPassword());
         } catch (IllegalArgumentException e) {
             securityAuditService.logPasswordValidationFailure(request.getEmail(), e.getMessage(), ipAddress);
-            metricsService.recordPasswordValidationFailure(e.getMessage());
+            metricsService.recordPasswordValidationFailure(passwordValidator.violationReason(request.getPassword()));
             throw e;
         }
 
-        // Check if username already exists
-        if (userRepository.findByUsername(request.getUsername()).isPresent()) {
-            securityAuditService.logRegistrationFailure(request.getEmail(), "Username already exists", ipAddress);
-            metricsService.recordRegistrationFailure("username_exists");
-            throw new IllegalArgumentException("Username already exists");
-        }
-
-        // Check if email already exists
-        if (userRepository.findByEmail(request.getEmail()).isPresent()) {
-            securityAuditService.logRegistrationFailure(request.getEmail(), "Email already exists", ipAddress);
-            metricsService.recordRegistrationFailure("email_exists");
-            throw new IllegalArgumentException("Email already exists");
+        // Administrators are provisioned, never self-registered
+        if (request.getRole() == Role.ADMIN) {
+            securityAuditService.logRegistrationFailure(request.getEmail(), "Admin role requested", ipAddress);
+            metricsService.recordRegistrationFailure("admin_role");
+            throw new IllegalArgumentException("Role ADMIN can't be registered");
         }
 
         // Create new user
@@ -75,20 +68,22 @@ public class AuthService {
                 .accountNonLocked(true)
                 .build();
 
-        // Generate tokens
-        long tokenStartTime = System.currentTimeMillis();
-        String accessToken = jwtService.generateAccessToken(user);
-        String refreshToken = jwtService.generateRefreshToken(user);
-        long tokenDuration = System.currentTimeMillis() - tokenStartTime;
-        metricsService.recordTokenGenerationDuration(tokenDuration);
-
-        // Store refresh token in user
-        user.setRefreshToken(refreshToken);
-        user.setRefreshTokenExpiryDate(
-                LocalDateTime.now().plusSeconds(jwtService.getJwtRefreshTokenExpirationMs() / 1000)
-        );
+        // A single bulk request reserves the username and email and saves the user, no lookups beforehand
+        User savedUser;
+        try {
+            savedUser = userUniqueKeyService.createUser(user);
+        } catch (UserAlreadyExistsException e) {
+            securityAuditService.logRegistrationFailure(request.getEmail(), e.getMessage(), ipAddress);
+            metricsService.recordRegistrationFailure(e.getField() + "_exists");
+            throw e;
+        }
 
-        userRepository.save(user);
+        // Generate tokens, the refresh token starts a new session family for this device
+        long tokenStartTime = System.nanoTime();
+        var refreshToken = refreshTokenService.startSession(savedUser, ipAddress);
+        String accessToken = jwtService.generateAccessToken(savedUser, refreshToken.familyId());
+        long tokenDuration = System.nanoTime() - tokenStartTime;
+        metricsService.recordTokenGenerationDuration(tokenDuration);
 
         // Log successful registration
         securityAuditService.logRegistrationSuccess(user.getEmail(), user.getUsername(), ipAddress);
@@ -96,7 +91,7 @@ public class AuthService {
 
         return AuthResponse.builder()
                 .accessToken(accessToken)
-                .refreshToken(refreshToken)
+                .refreshToken(refreshToken.token())
                 .username(user.getUsername())
                 .email(user.getEmail())
                 .role(user.getRole())
@@ -110,17 +105,29 @@ public class AuthService {
      * Authenticate and login a user
      */
     public AuthResponse login(LoginRequest request, String ipAddress) {
-        long loginStartTime = System.currentTimeMillis();
+        long loginStartTime = System.nanoTime();
 
         try {
 
+            if (loginAttemptService.isIpBlocked(ipAddress)) {
+                securityAuditService.logSuspiciousActivity(
+                        request.getEmail(),
+                        String.format("Login blocked after %d failed attempts from this IP", loginAttemptService.getIpMaxAttempts()),
+                        ipAddress
+                );
+                metricsService.recordLoginFailure("ip_blocked");
+                throw new IllegalStateException(
+                        String.format("Too many failed login attempts. Try again in %d minutes.", (int)(loginAttemptService.getLockTimeDuration()/60/1000))
+                );
+            }
+
             if (loginAttemptService.isBlocked(request.getEmail())) {
                 securityAuditService.logAccountLocked(
                         request.getEmail(),
                         loginAttemptService.getMaxAttempts(),
                         ipAddress
                 );
-                metricsService.recordAccountLocked(request.getEmail());
+                metricsService.recordAccountLocked();
                 throw new IllegalStateException(
                         String.format("Account temporarily locked. Try again in %d minutes.", (int)(loginAttemptService.getLockTimeDuration()/60/1000))
                 );
@@ -135,7 +142,7 @@ public class AuthService {
             );
 
             // Retrieve user from database
-            User user = userRepository.findByEmail(request.getEmail())
+            User user = userUniqueKeyService.findUserByEmail(request.getEmail())
                     .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
             // Check if account is enabled
@@ -152,32 +159,24 @@ public class AuthService {
                 throw new IllegalArgumentException("Account is locked");
             }
 
-            // Generate tokens
-            long tokenStartTime = System.currentTimeMillis();
-            String accessToken = jwtService.generateAccessToken(user);
-            String refreshToken = jwtService.generateRefreshToken(user);
-            long tokenDuration = System.currentTimeMillis() - tokenStartTime;
+            // Generate tokens, every login starts its own session family so several devices can stay logged in
+            long tokenStartTime = System.nanoTime();
+            var refreshToken = refreshTokenService.startSession(user, ipAddress);
+            String accessToken = jwtService.generateAccessToken(user, refreshToken.familyId());
+            long tokenDuration = System.nanoTime() - tokenStartTime;
             metricsService.recordTokenGenerationDuration(tokenDuration);
 
-            // Store refresh token in user
-            user.setRefreshToken(refreshToken);
-            user.setRefreshTokenExpiryDate(
-                    LocalDateTime.now().plusSeconds(jwtService.getJwtRefreshTokenExpirationMs() / 1000)
-            );
-
-            userRepository.save(user);
-
             loginAttemptService.loginSucceeded(request.getEmail());
 
             // Log successful login and record metrics
             securityAuditService.logLoginSuccess(request.getEmail(), ipAddress);
             metricsService.recordLoginSuccess("email_and_password");
-            long loginDuration = System.currentTimeMillis() - loginStartTime;
+            long loginDuration = System.nanoTime() - loginStartTime;
             metricsService.recordLoginDuration(loginDuration);
 
             return AuthResponse.builder()
                     .accessToken(accessToken)
-                    .refreshToken(refreshToken)
+                    .refreshToken(refreshToken.token())
                     .username(user.getUsername())
                     .email(user.getEmail())
                     .role(user.getRole())
@@ -187,31 +186,32 @@ public class AuthService {
                     .build();
 
         } catch (AuthenticationException e) {
-            loginAttemptService.loginFailed(request.getEmail());
+            loginAttemptService.loginFailed(request.getEmail(), ipAddress);
             securityAuditService.logLoginFailure(request.getEmail(), "Invalid credentials", ipAddress);
             metricsService.recordLoginFailure("invalid_credentials");
-            metricsService.recordFailedAttempt(request.getEmail());
+            metricsService.recordFailedAttempt();
             throw new IllegalArgumentException("Invalid username or password");
         }
     }
 
     /**
      * Refresh access token using refresh token
+     * Rotates the refresh token within its session family, the user document is not written
      */
-    @CacheEvict(value = "usersByEmail", key = "#result.email")
     public AuthResponse refreshToken(String refreshToken, String ipAddress) {
         try {
-            // Validate refresh token
-            if (!jwtService.validateToken(refreshToken)) {
+            // Parse and verify the refresh token once
+            JwtValidationResult result = jwtService.parseRefreshToken(refreshToken);
+            if (!result.isValid()) {
                 securityAuditService.logTokenRefreshFailure("unknown", "Invalid or expired token", ipAddress);
-                metricsService.recordTokenRefreshFailure("invalid_token");
+                metricsService.recordTokenRefreshFailure(result.isExpired() ? "token_expired" : "invalid_token");
                 throw new InvalidRefreshTokenException(
                         "Invalid or expired refresh token"
                 );
             }
 
             // Verify it's actually a refresh token
-            if (!jwtService.isRefreshToken(refreshToken)) {
+            if (!result.isRefreshToken()) {
                 securityAuditService.logTokenRefreshFailure("unknown", "Not a refresh token", ipAddress);
                 metricsService.recordTokenRefreshFailure("not_refresh_token");
                 throw new InvalidRefreshTokenException(
@@ -220,57 +220,32 @@ public class AuthService {
             }
 
             // Get user email from token
-            String email = jwtService.getEmailFromToken(refreshToken);
+            String email = result.subject();
 
             // Find user
-            User user = userRepository.findByEmail(email)
+            User user = userUniqueKeyService.findUserByEmail(email)
                     .orElseThrow(() -> {
                         securityAuditService.logTokenRefreshFailure(email, "User not found", ipAddress);
                         metricsService.recordTokenRefreshFailure("user_not_found");
                         return new IllegalArgumentException("User not found");
                     });
 
-            // Verify the refresh token matches the one stored in database
-            if (user.getRefreshToken() == null || !user.getRefreshToken().equals(refreshToken)) {
-                securityAuditService.logTokenRefreshFailure(email, "Token mismatch", ipAddress);
-                metricsService.recordTokenRefreshFailure("token_mismatch");
-                throw new InvalidRefreshTokenException(
-                        "Refresh token does not match"
-                );
-            }
-
-            // Check if refresh token has expired in database
-            if (user.getRefreshTokenExpiryDate() != null &&
-                    user.getRefreshTokenExpiryDate().isBefore(LocalDateTime.now())) {
-                securityAuditService.logTokenRefreshFailure(email, "Token expired", ipAddress);
-                metricsService.recordTokenRefreshFailure("token_expired");
-                throw new InvalidRefreshTokenException(
-                        "Refresh token has expired"
-                );
-            }
+            // Rotate the refresh token, a reused token revokes its whole session family
+            var newRefreshToken = refreshTokenService.rotate(refreshToken, result.claims(), user, ipAddress);
 
             // Generate new access token
-            long tokenStartTime = System.currentTimeMillis();
-            String newAccessToken = jwtService.generateAccessToken(user);
-
-            // Optionally rotate refresh token (generate new one)
-            String newRefreshToken = jwtService.generateRefreshToken(user);
-            long tokenDuration = System.currentTimeMillis() - tokenStartTime;
+            long tokenStartTime = System.nanoTime();
+            String newAccessToken = jwtService.generateAccessToken(user, newRefreshToken.familyId());
+            long tokenDuration = System.nanoTime() - tokenStartTime;
             metricsService.recordTokenGenerationDuration(tokenDuration);
 
-            user.setRefreshToken(newRefreshToken);
-            user.setRefreshTokenExpiryDate(
-                    LocalDateTime.now().plusSeconds(jwtService.getJwtRefreshTokenExpirationMs() / 1000)
-            );
-            userRepository.save(user);
-
             // Log successful token refresh
             securityAuditService.logTokenRefreshSuccess(email, ipAddress);
             metricsService.recordTokenRefreshSuccess();
 
             return AuthResponse.builder()
                     .accessToken(newAccessToken)
-                    .refreshToken(newRefreshToken)
+                    .refreshToken(newRefreshToken.token())
                     .username(user.getUsername())
                     .email(user.getEmail())
                     .role(user.getRole())
@@ -288,22 +263,23 @@ public class AuthService {
     }
 
     /**
-     * Logout user by invalidating refresh token
-     * Clears refresh token from database and evicts user from cache
+     * Logout user by revoking the session of the current device
+     * Revokes the access token and the refresh token family it belongs to, other devices stay logged in
      *
      * @param email user's email
+     * @param accessToken access token the logout request was made with, revoked until its expiration
      * @param ipAddress client IP address
      */
-    @CacheEvict(value = "usersByEmail", key = "#email")
-    public void logout(String email, String ipAddress) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-
-        // Clear refresh token
-        user.setRefreshToken(null);
-        user.setRefreshTokenExpiryDate(null);
-
-        userRepository.save(user);
+    public void logout(String email, String accessToken, String ipAddress) {
+        // The persisted jti revocation survives restarts. Other instances only see it after their next
+        // revocation sync, see jwt.revocation.sync-interval-seconds.
+        if (accessToken != null) {
+            JwtValidationResult result = jwtService.parseToken(accessToken);
+            if (result.isValid() && email.equals(result.subject())) {
+                tokenRevocationService.revoke(accessToken, result.claims(), "logout");
+                refreshTokenService.revokeFamily(result.claims().get("sid", String.class));
+            }
+        }
 
         // Log logout event and record metric
         securityAuditService.logLogout(email, ipAddress);
@@ -0,0 +1,17 @@
+package com.devtiro.realestate.services;
+
+import com.devtiro.realestate.domain.dto.CacheStatsDto;
+
+import java.util.List;
+
+public interface CacheAdminService {
+
+    List<CacheStatsDto> getCaches();
+
+    CacheStatsDto getCache(String name);
+
+    CacheStatsDto warmCache(String name);
+
+    CacheStatsDto clearCache(String name);
+
+}
@@ -0,0 +1,90 @@
+package com.devtiro.realestate.services;
+
+import com.devtiro.realestate.config.CacheRegistry;
+import com.devtiro.realestate.domain.dto.PropertyListingResponseDto;
+import com.devtiro.realestate.domain.entities.PropertyListing;
+import com.devtiro.realestate.domain.entities.PropertyStatus;
+import com.devtiro.realestate.mappers.PropertyListingMapper;
+import com.devtiro.realestate.repositories.PropertyListingRepository;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Mapped listings by id, for the listing detail endpoint
+ *
+ * Read-through: a miss loads and maps the listing once, concurrent readers of the same id wait for that load.
+ * Entries older than refresh-after-write are reloaded in the background on their next read while the old
+ * value is still served, so popular listings never expire under load. Every write of this node puts the new
+ * listing, other nodes see it after their refresh.
+ */
+@Slf4j
+@Service
+public class ListingCache {
+
+    public static final String LISTINGS = "listings";
+
+    private final PropertyListingRepository propertyListingRepository;
+    private final PropertyListingMapper propertyListingMapper;
+    private final LoadingCache<String, PropertyListingResponseDto> cache;
+    private final int warmSize;
+
+    public ListingCache(
+            CacheRegistry cacheRegistry,
+            PropertyListingRepository propertyListingRepository,
+            PropertyListingMapper propertyListingMapper
+    ) {
+        this.propertyListingRepository = propertyListingRepository;
+        this.propertyListingMapper = propertyListingMapper;
+        this.warmSize = cacheRegistry.getSpec(LISTINGS).getWarmSize();
+        // A null load, e.g. a refresh of a listing deleted on another node, removes the entry
+        this.cache = cacheRegistry.register(
+                LISTINGS,
+                cacheRegistry.newBuilder(LISTINGS).build(this::load),
+                this::warm
+        );
+    }
+
+    /**
+     * Cached listing, or null if it doesn't exist
+     */
+    public PropertyListingResponseDto get(String propertyListingId) {
+        return cache.get(propertyListingId);
+    }
+
+    /**
+     * Write-through after a save, also drops a refresh of the old value that is still in flight
+     */
+    public PropertyListingResponseDto put(PropertyListing propertyListing) {
+        PropertyListingResponseDto propertyListingResponseDto = propertyListingMapper.toPropertyListingResponseDto(propertyListing);
+        cache.put(propertyListing.getId(), propertyListingResponseDto);
+        return propertyListingResponseDto;
+    }
+
+    public void evict(String propertyListingId) {
+        cache.invalidate(propertyListingId);
+    }
+
+    private PropertyListingResponseDto load(String propertyListingId) {
+        return propertyListingRepository.findById(propertyListingId)
+                .map(propertyListingMapper::toPropertyListingResponseDto)
+                .orElse(null);
+    }
+
+    /**
+     * Newest active listings, the ones detail pages are shared for
+     */
+    private int warm() {
+        Map<String, PropertyListingResponseDto> listings = propertyListingRepository
+                .findAllByStatus(PropertyStatus.ACTIVE, PageRequest.of(0, warmSize, Sort.by(Sort.Direction.DESC, "createdDate")))
+                .stream()
+                .collect(Collectors.toMap(PropertyListing::getId, propertyListingMapper::toPropertyListingResponseDto));
+        cache.putAll(listings);
+        return listings.size();
+    }
+}
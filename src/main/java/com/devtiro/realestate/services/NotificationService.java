@@ -4,6 +4,8 @@ import com.devtiro.realestate.domain.entities.PropertyViewing;
 import com.devtiro.realestate.domain.entities.Role;
 import com.devtiro.realestate.domain.entities.User;
 import com.devtiro.realestate.exceptions.UnauthorizedException;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.mail.SimpleMailMessage;
@@ -12,6 +14,10 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -19,6 +25,7 @@ import java.time.format.DateTimeFormatter;
 public class NotificationService {
 
     private final JavaMailSender mailSender;
+    private final ObservationRegistry observationRegistry;
 
     private static final DateTimeFormatter DATE_TIME_FORMATTER =
             DateTimeFormatter.ofPattern("MMMM dd, yyyy 'at' hh:mm a");
@@ -47,7 +54,7 @@ public class NotificationService {
                     viewing.getScheduledDateTime().format(DATE_TIME_FORMATTER)
             ));
 
-            mailSender.send(message);
+            send("viewing_request_agent", message);
             log.info("Sent viewing request notification to agent: {}", agentEmail);
         } catch (Exception e) {
             log.error("Failed to send viewing request notification to agent: {}", agentEmail, e);
@@ -71,7 +78,7 @@ public class NotificationService {
                     viewing.getScheduledDateTime().format(DATE_TIME_FORMATTER)
             ));
 
-            mailSender.send(message);
+            send("viewing_request_user", message);
             log.info("Sent viewing confirmation to user: {}", userEmail);
         } catch (Exception e) {
             log.error("Failed to send viewing confirmation to user: {}", userEmail, e);
@@ -102,13 +109,76 @@ public class NotificationService {
                     viewing.getScheduledDateTime().format(DATE_TIME_FORMATTER)
             ));
 
-            mailSender.send(message);
+            send("viewing_confirmed", message);
             log.info("Sent viewing confirmation to user: {}", viewing.getUserEmail());
         } catch (Exception e) {
             log.error("Failed to send viewing confirmation to user: {}", viewing.getUserEmail(), e);
         }
     }
 
+    /**
+     * One digest email per user for a bulk confirmation, instead of one email per viewing
+     */
+    @Async
+    public void notifyUsersOnBulkConfirmedViewings(List<PropertyViewing> viewings, User agent) {
+        String agentName = agent.getFirstName() + " " + agent.getLastName();
+        groupByUserEmail(viewings).forEach((userEmail, userViewings) -> {
+            try {
+                var message = new SimpleMailMessage();
+                message.setTo(userEmail);
+                message.setSubject(userViewings.size() == 1
+                        ? "Property Viewing Confirmed"
+                        : String.format("%d Property Viewings Confirmed", userViewings.size()));
+                message.setText(String.format(
+                        "The following viewings have been confirmed:\n\n" +
+                                "%s\n" +
+                                "Confirmed By: %s\n" +
+                                "Contact: %s\n" +
+                                "Phone: %s\n\n" +
+                                "In any problems please find the contact email and phone number above.",
+                        formatViewingDigest(userViewings),
+                        agentName,
+                        agent.getEmail(),
+                        agent.getPhoneNumber()
+                ));
+
+                send("viewing_confirmed", message);
+                log.info("Sent bulk viewing confirmation for {} viewings to user: {}", userViewings.size(), userEmail);
+            } catch (Exception e) {
+                log.error("Failed to send bulk viewing confirmation to user: {}", userEmail, e);
+            }
+        });
+    }
+
+    /**
+     * One digest email per user for a bulk cancellation by the agent
+     */
+    @Async
+    public void notifyUsersOnBulkCancelledViewings(List<PropertyViewing> viewings) {
+        groupByUserEmail(viewings).forEach((userEmail, userViewings) -> {
+            try {
+                var message = new SimpleMailMessage();
+                message.setTo(userEmail);
+                message.setSubject(userViewings.size() == 1
+                        ? "Property Viewing Cancelled"
+                        : String.format("%d Property Viewings Cancelled", userViewings.size()));
+                message.setText(String.format(
+                        "The following viewings have been cancelled:\n\n" +
+                                "%s\n" +
+                                "Reason: %s\n\n" +
+                                "Please contact the agent if you'd like to schedule a new viewing.",
+                        formatViewingDigest(userViewings),
+                        userViewings.get(0).getCancellationReason()
+                ));
+
+                send("viewing_cancelled", message);
+                log.info("Sent bulk viewing cancellation for {} viewings to user: {}", userViewings.size(), userEmail);
+            } catch (Exception e) {
+                log.error("Failed to send bulk viewing cancellation to user: {}", userEmail, e);
+            }
+        });
+    }
+
     @Async
     public void notifyViewingRescheduled(PropertyViewing viewing, User userPrincipal) {
         try {
@@ -126,7 +196,7 @@ public class NotificationService {
                         viewing.getPropertyAddress(),
                         viewing.getScheduledDateTime().format(DATE_TIME_FORMATTER)
                 ));
-                mailSender.send(message);
+                send("viewing_rescheduled", message);
                 log.info("Sent viewing rescheduled notification to user: {}", viewing.getUserEmail());
             } else if(userPrincipal.getRole().equals(Role.USER)) {
                 message.setTo(viewing.getAgentEmail());
@@ -140,7 +210,7 @@ public class NotificationService {
                         viewing.getPropertyAddress(),
                         viewing.getScheduledDateTime().format(DATE_TIME_FORMATTER)
                 ));
-                mailSender.send(message);
+                send("viewing_rescheduled", message);
                 log.info("Sent viewing rescheduled notification to agent: {}", viewing.getAgentEmail());
             } else {
                 throw new UnauthorizedException("Invalid user role");
@@ -171,7 +241,7 @@ public class NotificationService {
                         viewing.getScheduledDateTime().format(DATE_TIME_FORMATTER),
                         viewing.getCancellationReason()
                 ));
-                mailSender.send(message);
+                send("viewing_cancelled", message);
                 log.info("Sent viewing cancelled notification to user: {}", viewing.getUserEmail());
             } else if(userPrincipal.getRole().equals(Role.USER)) {
                 message.setTo(viewing.getAgentEmail());
@@ -187,7 +257,7 @@ public class NotificationService {
                         viewing.getScheduledDateTime().format(DATE_TIME_FORMATTER),
                         viewing.getCancellationReason()
                 ));
-                mailSender.send(message);
+                send("viewing_cancelled", message);
                 log.info("Sent viewing cancelled notification to agent: {}", viewing.getAgentEmail());
             } else {
                 throw new UnauthorizedException("Invalid user role");
@@ -197,4 +267,77 @@ public class NotificationService {
             log.error("Failed to send rescheduled notification", e);
         }
     }
+
+    @Async
+    public void notifyViewingReminder(PropertyViewing viewing) {
+        try {
+            var userMessage = new SimpleMailMessage();
+            userMessage.setTo(viewing.getUserEmail());
+            userMessage.setSubject("Reminder: Upcoming Property Viewing");
+            userMessage.setText(String.format(
+                    "This is a reminder of your upcoming property viewing:\n\n" +
+                            "Property: %s\n" +
+                            "Address: %s\n" +
+                            "Scheduled Time: %s\n\n" +
+                            "If you can no longer attend, please cancel or reschedule the viewing.",
+                    viewing.getPropertyTitle(),
+                    viewing.getPropertyAddress(),
+                    viewing.getScheduledDateTime().format(DATE_TIME_FORMATTER)
+            ));
+            send("viewing_reminder", userMessage);
+            log.info("Sent viewing reminder to user: {}", viewing.getUserEmail());
+
+            var agentMessage = new SimpleMailMessage();
+            agentMessage.setTo(viewing.getAgentEmail());
+            agentMessage.setSubject("Reminder: Upcoming Property Viewing");
+            agentMessage.setText(String.format(
+                    "This is a reminder of an upcoming property viewing:\n\n" +
+                            "Property: %s\n" +
+                            "Address: %s\n" +
+                            "Client: %s\n" +
+                            "Contact: %s\n" +
+                            "Phone: %s\n" +
+                            "Scheduled Time: %s",
+                    viewing.getPropertyTitle(),
+                    viewing.getPropertyAddress(),
+                    viewing.getUserName(),
+                    viewing.getUserEmail(),
+                    viewing.getUserPhone(),
+                    viewing.getScheduledDateTime().format(DATE_TIME_FORMATTER)
+            ));
+            send("viewing_reminder", agentMessage);
+            log.info("Sent viewing reminder to agent: {}", viewing.getAgentEmail());
+        } catch (Exception e) {
+            log.error("Failed to send viewing reminder for viewing: {}", viewing.getId(), e);
+        }
+    }
+
+    private static LinkedHashMap<String, List<PropertyViewing>> groupByUserEmail(List<PropertyViewing> viewings) {
+        return viewings.stream()
+                .sorted(Comparator.comparing(PropertyViewing::getScheduledDateTime))
+                .collect(Collectors.groupingBy(PropertyViewing::getUserEmail, LinkedHashMap::new, Collectors.toList()));
+    }
+
+    private static String formatViewingDigest(List<PropertyViewing> viewings) {
+        return viewings.stream()
+                .map(viewing -> String.format(
+                        "Property: %s\n" +
+                                "Address: %s\n" +
+                                "Scheduled Time: %s\n",
+                        viewing.getPropertyTitle(),
+                        viewing.getPropertyAddress(),
+                        viewing.getScheduledDateTime().format(DATE_TIME_FORMATTER)
+                ))
+                .collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * Send one mail in its own span, the async hand-off keeps it in the trace of the request
+     */
+    private void send(String notification, SimpleMailMessage message) {
+        Observation.createNotStarted("notification.send", observationRegistry)
+                .contextualName("send " + notification)
+                .lowCardinalityKeyValue("notification", notification)
+                .observe(() -> mailSender.send(message));
+    }
 }
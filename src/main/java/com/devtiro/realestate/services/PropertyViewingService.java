@@ -17,6 +17,10 @@ public interface PropertyViewingService {
 
     PropertyViewingResponseDto confirmViewing(PropertyViewingConfirmRequest request, User agent);
 
+    List<PropertyViewingResponseDto> bulkConfirmViewings(BulkViewingConfirmRequest request, User agent);
+
+    List<PropertyViewingResponseDto> bulkCancelViewings(BulkViewingCancelRequest request, User agent);
+
     PropertyViewingResponseDto rescheduleViewing(String viewingId, PropertyViewingRescheduleRequest request, User userPrincipal);
 
     PropertyViewingResponseDto cancelViewing(String viewingId, PropertyViewingCancelRequest request, User userPrincipal);
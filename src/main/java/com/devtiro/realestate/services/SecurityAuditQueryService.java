@@ -0,0 +1,17 @@
+package com.devtiro.realestate.services;
+
+import com.devtiro.realestate.domain.dto.AuditTermCountDto;
+import com.devtiro.realestate.domain.dto.SecurityAuditEventDto;
+import com.devtiro.realestate.security.SecurityAuditEventType;
+
+import java.util.List;
+
+public interface SecurityAuditQueryService {
+
+    List<AuditTermCountDto> getTopIpAddresses(SecurityAuditEventType type, int sinceMinutes, int size);
+
+    List<AuditTermCountDto> getFailureReasons(SecurityAuditEventType type, int sinceMinutes, int size);
+
+    List<SecurityAuditEventDto> getUserTimeline(String email, int sinceMinutes, int size);
+
+}
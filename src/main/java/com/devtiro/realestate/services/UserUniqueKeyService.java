@@ -0,0 +1,206 @@
+package com.devtiro.realestate.services;
+
+import com.devtiro.realestate.domain.entities.User;
+import com.devtiro.realestate.domain.entities.UserUniqueKey;
+import com.devtiro.realestate.exceptions.UserAlreadyExistsException;
+import com.devtiro.realestate.repositories.UserRepository;
+import com.devtiro.realestate.repositories.UserUniqueKeyRepository;
+import com.devtiro.realestate.security.TokenHasher;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.RefreshPolicy;
+import org.springframework.data.elasticsearch.core.SearchHitsIterator;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.BulkOptions;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Enforces unique emails and usernames with reservation documents
+ *
+ * A search for an existing email only sees refreshed documents, two concurrent registrations can both
+ * pass it. Reservations have ids derived from the value and are created with op_type=create, Elasticsearch
+ * rejects the second one with a conflict. The reservations and the user are written in one bulk request.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserUniqueKeyService {
+
+    private static final String EMAIL_PREFIX = "email:";
+    private static final String USERNAME_PREFIX = "username:";
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final UserUniqueKeyRepository userUniqueKeyRepository;
+    private final UserRepository userRepository;
+
+    // Until every existing user has reservations, a missing reservation doesn't mean the email is unknown
+    private volatile boolean backfilled = false;
+
+    public static String emailKey(String email) {
+        return EMAIL_PREFIX + TokenHasher.sha256(email);
+    }
+
+    public static String usernameKey(String username) {
+        return USERNAME_PREFIX + TokenHasher.sha256(username);
+    }
+
+    /**
+     * Save a new user together with the reservations of its email and username
+     *
+     * The request waits for the refresh, so the user can log in right away.
+     *
+     * @throws UserAlreadyExistsException if the username or email is already taken
+     */
+    public User createUser(User user) {
+        user.setId(UUID.randomUUID().toString());
+        String usernameKey = usernameKey(user.getUsername());
+        String emailKey = emailKey(user.getEmail());
+
+        IndexCoordinates usersIndex = elasticsearchOperations.getIndexCoordinatesFor(User.class);
+        List<IndexQuery> queries = List.of(
+                reservation(usernameKey, user.getId()),
+                reservation(emailKey, user.getId()),
+                new IndexQueryBuilder()
+                        .withId(user.getId())
+                        .withObject(user)
+                        .withOpType(IndexQuery.OpType.CREATE)
+                        .build()
+        );
+
+        try {
+            elasticsearchOperations.bulkIndex(
+                    queries,
+                    BulkOptions.builder().withRefreshPolicy(RefreshPolicy.WAIT_UNTIL).build(),
+                    usersIndex
+            );
+            return user;
+        } catch (BulkFailureException e) {
+            Map<String, BulkFailureException.FailureDetails> failed = e.getFailedDocuments();
+
+            // The bulk is not atomic, undo whatever of this registration was written
+            List<String> writtenKeys = new ArrayList<>();
+            if (!failed.containsKey(usernameKey)) {
+                writtenKeys.add(usernameKey);
+            }
+            if (!failed.containsKey(emailKey)) {
+                writtenKeys.add(emailKey);
+            }
+            userUniqueKeyRepository.deleteAllById(writtenKeys);
+            if (!failed.containsKey(user.getId())) {
+                elasticsearchOperations.delete(user.getId(), usersIndex);
+            }
+
+            if (isConflict(failed, usernameKey)) {
+                throw new UserAlreadyExistsException("Username already exists", "username");
+            }
+            if (isConflict(failed, emailKey)) {
+                throw new UserAlreadyExistsException("Email already exists", "email");
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Find a user by email with two real-time GETs, the email reservation and then the user
+     *
+     * Unlike a search, a GET sees documents right after they were written and skips the query phase.
+     * Until the startup backfill has finished, users without a reservation are found with a search
+     * and get their reservation on the way.
+     */
+    public Optional<User> findUserByEmail(String email) {
+        Optional<User> user = userUniqueKeyRepository.findById(emailKey(email))
+                .flatMap(key -> userRepository.findById(key.getUserId()))
+                .filter(found -> email.equals(found.getEmail()));
+        if (user.isPresent() || backfilled) {
+            return user;
+        }
+
+        Optional<User> searched = userRepository.findByEmail(email);
+        searched.ifPresent(found -> {
+            try {
+                reserve(List.of(reservation(emailKey(found.getEmail()), found.getId())));
+            } catch (Exception e) {
+                log.warn("Failed to reserve email of user: {}", found.getId(), e);
+            }
+        });
+        return searched;
+    }
+
+    /**
+     * Free the email and username of a deleted user
+     */
+    public void release(User user) {
+        userUniqueKeyRepository.deleteAllById(List.of(usernameKey(user.getUsername()), emailKey(user.getEmail())));
+    }
+
+    /**
+     * Reserve the keys of users created before reservations existed
+     * Keys that are already reserved are left as they are.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillReservations() {
+        int reserved = 0;
+        List<IndexQuery> batch = new ArrayList<>();
+        try (SearchHitsIterator<User> users = elasticsearchOperations.searchForStream(Query.findAll(), User.class)) {
+            while (users.hasNext()) {
+                User user = users.next().getContent();
+                batch.add(reservation(usernameKey(user.getUsername()), user.getId()));
+                batch.add(reservation(emailKey(user.getEmail()), user.getId()));
+                if (batch.size() >= BACKFILL_BATCH_SIZE) {
+                    reserved += reserve(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                reserved += reserve(batch);
+            }
+            backfilled = true;
+            log.info("Backfilled {} user unique key reservations", reserved);
+        } catch (Exception e) {
+            log.error("Failed to backfill user unique key reservations", e);
+        }
+    }
+
+    private int reserve(List<IndexQuery> reservations) {
+        try {
+            elasticsearchOperations.bulkIndex(reservations, UserUniqueKey.class);
+            return reservations.size();
+        } catch (BulkFailureException e) {
+            // Conflicts are keys reserved already, anything else is a real failure
+            boolean otherFailures = e.getFailedDocuments().keySet().stream()
+                    .anyMatch(id -> !isConflict(e.getFailedDocuments(), id));
+            if (otherFailures) {
+                throw e;
+            }
+            return reservations.size() - e.getFailedDocuments().size();
+        }
+    }
+
+    private IndexQuery reservation(String key, String userId) {
+        return new IndexQueryBuilder()
+                .withId(key)
+                .withObject(UserUniqueKey.builder().id(key).userId(userId).build())
+                .withOpType(IndexQuery.OpType.CREATE)
+                .withIndex(elasticsearchOperations.getIndexCoordinatesFor(UserUniqueKey.class).getIndexName())
+                .build();
+    }
+
+    private boolean isConflict(Map<String, BulkFailureException.FailureDetails> failed, String id) {
+        BulkFailureException.FailureDetails details = failed.get(id);
+        return details != null && details.status() != null && details.status() == 409;
+    }
+}
@@ -0,0 +1,222 @@
+package com.devtiro.realestate.services.impl;
+
+import com.devtiro.realestate.domain.dto.*;
+import com.devtiro.realestate.domain.entities.*;
+import com.devtiro.realestate.mappers.AgentAvailabilityMapper;
+import com.devtiro.realestate.repositories.AgentAvailabilityRepository;
+import com.devtiro.realestate.repositories.PropertyListingRepository;
+import com.devtiro.realestate.repositories.PropertyViewingRepository;
+import com.devtiro.realestate.services.AgentAvailabilityService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.*;
+import java.util.*;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class AgentAvailabilityServiceImpl implements AgentAvailabilityService {
+
+    private static final List<ViewingStatus> ACTIVE_VIEWING_STATUSES =
+            List.of(ViewingStatus.CONFIRMED, ViewingStatus.REQUESTED);
+
+    @Value("${viewing.schedule.time-limit-in-minutes}")
+    private int viewingScheduleTimeLimitInMinutes;
+
+    @Value("${viewing.availability.default-working-days}")
+    private List<DayOfWeek> defaultWorkingDays;
+
+    @Value("${viewing.availability.default-start-time}")
+    private LocalTime defaultStartTime;
+
+    @Value("${viewing.availability.default-end-time}")
+    private LocalTime defaultEndTime;
+
+    @Value("${viewing.availability.default-range-days}")
+    private int defaultRangeDays;
+
+    @Value("${viewing.availability.max-range-days}")
+    private int maxRangeDays;
+
+    private final AgentAvailabilityRepository availabilityRepository;
+    private final PropertyListingRepository listingRepository;
+    private final PropertyViewingRepository viewingRepository;
+    private final AgentAvailabilityMapper availabilityMapper;
+
+    @Override
+    public AgentAvailabilityResponseDto getAvailability(String agentId) {
+        return availabilityMapper.toAgentAvailabilityResponseDto(loadAvailability(agentId));
+    }
+
+    @Override
+    public AgentAvailabilityResponseDto updateAvailability(AgentAvailabilityRequest request, User agent) {
+        List<WorkingHours> workingHours = availabilityMapper.toWorkingHours(request.getWorkingHours());
+        List<BlackoutPeriod> blackouts = request.getBlackouts() != null
+                ? availabilityMapper.toBlackoutPeriods(request.getBlackouts())
+                : new ArrayList<>();
+
+        validateWorkingHours(workingHours);
+        validateBlackouts(blackouts);
+
+        AgentAvailability availability = availabilityRepository.findById(agent.getId())
+                .orElseGet(() -> AgentAvailability.builder().id(agent.getId()).build());
+        availability.setWorkingHours(workingHours);
+        availability.setBlackouts(blackouts);
+
+        AgentAvailability savedAvailability = availabilityRepository.save(availability);
+        log.info("Updated availability rules for agent: {}", agent.getId());
+
+        return availabilityMapper.toAgentAvailabilityResponseDto(savedAvailability);
+    }
+
+    /**
+     * Generate ready-to-book viewing slots for a listing
+     *
+     * Slots are cut from the agent's working hours in steps of viewing.schedule.time-limit-in-minutes.
+     * Viewings of all the agent's listings and the blackout periods are both sorted by time, so a
+     * single forward pass over the slots can check both with two moving pointers.
+     * A slot is free when no active viewing is closer than the time limit, the same rule requestViewing enforces.
+     */
+    @Override
+    public AvailableSlotsResponseDto getAvailableSlots(String propertyListingId, LocalDateTime from, LocalDateTime to) {
+        var listing = listingRepository.findById(propertyListingId)
+                .orElseThrow(() -> new IllegalArgumentException("Property listing not found with ID: " + propertyListingId));
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime rangeStart = from != null && from.isAfter(now) ? from : now;
+        LocalDateTime rangeEnd = to != null ? to : rangeStart.plusDays(defaultRangeDays);
+
+        if (!rangeEnd.isAfter(rangeStart)) {
+            throw new IllegalArgumentException("The end of the range must be after its start");
+        }
+        if (Duration.between(rangeStart, rangeEnd).toDays() > maxRangeDays) {
+            throw new IllegalArgumentException(String.format("The range must not exceed %d days", maxRangeDays));
+        }
+
+        Duration slotLength = Duration.ofMinutes(viewingScheduleTimeLimitInMinutes);
+        AgentAvailability availability = loadAvailability(listing.getAgentId());
+
+        List<LocalDateTime> bookedTimes = viewingRepository
+                .findAllByAgentIdAndStatusInAndScheduledDateTimeBetweenOrderByScheduledDateTimeAsc(
+                        listing.getAgentId(),
+                        ACTIVE_VIEWING_STATUSES,
+                        rangeStart.minus(slotLength),
+                        rangeEnd.plus(slotLength)
+                )
+                .stream()
+                .map(PropertyViewing::getScheduledDateTime)
+                .toList();
+
+        List<BlackoutPeriod> blackouts = Objects.requireNonNullElse(availability.getBlackouts(), List.<BlackoutPeriod>of()).stream()
+                .filter(b -> b.getEndDateTime().isAfter(rangeStart) && b.getStartDateTime().isBefore(rangeEnd))
+                .sorted(Comparator.comparing(BlackoutPeriod::getStartDateTime))
+                .toList();
+
+        Map<DayOfWeek, List<WorkingHours>> hoursByDay = new EnumMap<>(DayOfWeek.class);
+        Objects.requireNonNullElse(availability.getWorkingHours(), List.<WorkingHours>of()).stream()
+                .sorted(Comparator.comparing(WorkingHours::getStartTime))
+                .forEach(wh -> hoursByDay.computeIfAbsent(wh.getDayOfWeek(), d -> new ArrayList<>()).add(wh));
+
+        List<ViewingSlotDto> slots = new ArrayList<>();
+        int viewingIndex = 0;
+        int blackoutIndex = 0;
+
+        for (LocalDate day = rangeStart.toLocalDate(); !day.isAfter(rangeEnd.toLocalDate()); day = day.plusDays(1)) {
+            for (WorkingHours workingHours : hoursByDay.getOrDefault(day.getDayOfWeek(), List.of())) {
+                LocalDateTime windowEnd = day.atTime(workingHours.getEndTime());
+
+                for (LocalDateTime slotStart = day.atTime(workingHours.getStartTime());
+                     !slotStart.plus(slotLength).isAfter(windowEnd);
+                     slotStart = slotStart.plus(slotLength)) {
+
+                    LocalDateTime slotEnd = slotStart.plus(slotLength);
+                    if (slotStart.isBefore(rangeStart)) {
+                        continue;
+                    }
+                    if (slotEnd.isAfter(rangeEnd)) {
+                        break;
+                    }
+
+                    // Drop viewings that are at least one time limit before this slot, they can't conflict with later slots either
+                    while (viewingIndex < bookedTimes.size()
+                            && !bookedTimes.get(viewingIndex).isAfter(slotStart.minus(slotLength))) {
+                        viewingIndex++;
+                    }
+                    boolean booked = viewingIndex < bookedTimes.size()
+                            && bookedTimes.get(viewingIndex).isBefore(slotEnd);
+
+                    while (blackoutIndex < blackouts.size()
+                            && !blackouts.get(blackoutIndex).getEndDateTime().isAfter(slotStart)) {
+                        blackoutIndex++;
+                    }
+                    boolean blackedOut = blackoutIndex < blackouts.size()
+                            && blackouts.get(blackoutIndex).getStartDateTime().isBefore(slotEnd);
+
+                    if (!booked && !blackedOut) {
+                        slots.add(ViewingSlotDto.builder()
+                                .startDateTime(slotStart)
+                                .endDateTime(slotEnd)
+                                .build());
+                    }
+                }
+            }
+        }
+
+        return AvailableSlotsResponseDto.builder()
+                .propertyListingId(propertyListingId)
+                .agentId(listing.getAgentId())
+                .from(rangeStart)
+                .to(rangeEnd)
+                .slotDurationInMinutes(viewingScheduleTimeLimitInMinutes)
+                .slots(slots)
+                .build();
+    }
+
+    /**
+     * Stored rules of the agent, or the configured default working hours if the agent has none
+     */
+    private AgentAvailability loadAvailability(String agentId) {
+        return availabilityRepository.findById(agentId)
+                .orElseGet(() -> AgentAvailability.builder()
+                        .id(agentId)
+                        .workingHours(defaultWorkingDays.stream()
+                                .map(day -> WorkingHours.builder()
+                                        .dayOfWeek(day)
+                                        .startTime(defaultStartTime)
+                                        .endTime(defaultEndTime)
+                                        .build())
+                                .toList())
+                        .blackouts(List.of())
+                        .build());
+    }
+
+    private void validateWorkingHours(List<WorkingHours> workingHours) {
+        Map<DayOfWeek, List<WorkingHours>> hoursByDay = new EnumMap<>(DayOfWeek.class);
+        for (WorkingHours wh : workingHours) {
+            if (!wh.getEndTime().isAfter(wh.getStartTime())) {
+                throw new IllegalArgumentException("Working hours must end after they start on " + wh.getDayOfWeek());
+            }
+            hoursByDay.computeIfAbsent(wh.getDayOfWeek(), d -> new ArrayList<>()).add(wh);
+        }
+
+        hoursByDay.forEach((day, hours) -> {
+            hours.sort(Comparator.comparing(WorkingHours::getStartTime));
+            for (int i = 1; i < hours.size(); i++) {
+                if (hours.get(i).getStartTime().isBefore(hours.get(i - 1).getEndTime())) {
+                    throw new IllegalArgumentException("Working hours overlap on " + day);
+                }
+            }
+        });
+    }
+
+    private void validateBlackouts(List<BlackoutPeriod> blackouts) {
+        for (BlackoutPeriod blackout : blackouts) {
+            if (!blackout.getEndDateTime().isAfter(blackout.getStartDateTime())) {
+                throw new IllegalArgumentException("Blackout periods must end after they start");
+            }
+        }
+    }
+}
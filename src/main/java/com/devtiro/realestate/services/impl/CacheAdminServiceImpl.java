@@ -0,0 +1,72 @@
+package com.devtiro.realestate.services.impl;
+
+import com.devtiro.realestate.config.CacheProperties;
+import com.devtiro.realestate.config.CacheRegistry;
+import com.devtiro.realestate.domain.dto.CacheStatsDto;
+import com.devtiro.realestate.services.CacheAdminService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@RequiredArgsConstructor
+public class CacheAdminServiceImpl implements CacheAdminService {
+
+    private final CacheRegistry cacheRegistry;
+
+    @Override
+    public List<CacheStatsDto> getCaches() {
+        return cacheRegistry.getCacheNames().stream()
+                .map(this::toCacheStatsDto)
+                .toList();
+    }
+
+    @Override
+    public CacheStatsDto getCache(String name) {
+        return toCacheStatsDto(name);
+    }
+
+    @Override
+    public CacheStatsDto warmCache(String name) {
+        cacheRegistry.warm(name);
+        return toCacheStatsDto(name);
+    }
+
+    @Override
+    public CacheStatsDto clearCache(String name) {
+        cacheRegistry.clear(name);
+        return toCacheStatsDto(name);
+    }
+
+    private CacheStatsDto toCacheStatsDto(String name) {
+        Cache<Object, Object> cache = cacheRegistry.getCache(name);
+        CacheProperties.Spec spec = cacheRegistry.getSpec(name);
+        CacheStats stats = cache.stats();
+
+        return CacheStatsDto.builder()
+                .name(name)
+                .maximumSize(spec.getMaximumSize())
+                .expireAfterWrite(format(spec.getExpireAfterWrite()))
+                .expireAfterAccess(format(spec.getExpireAfterAccess()))
+                .refreshAfterWrite(format(spec.getRefreshAfterWrite()))
+                .warmable(cacheRegistry.isWarmable(name))
+                .estimatedSize(cache.estimatedSize())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRatio(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .loadSuccessCount(stats.loadSuccessCount())
+                .loadFailureCount(stats.loadFailureCount())
+                .averageLoadPenaltyMillis(stats.averageLoadPenalty() / TimeUnit.MILLISECONDS.toNanos(1))
+                .build();
+    }
+
+    private static String format(Duration duration) {
+        return duration != null ? duration.toString() : null;
+    }
+}
@@ -1,5 +1,6 @@
 package com.devtiro.realestate.services.impl;
 
+import com.devtiro.realestate.config.CacheRegistry;
 import com.devtiro.realestate.domain.dto.*;
 import com.devtiro.realestate.domain.entities.Photo;
 import com.devtiro.realestate.domain.entities.PropertyListing;
@@ -9,9 +10,14 @@ import com.devtiro.realestate.exceptions.UnauthorizedException;
 import com.devtiro.realestate.mappers.PhotoMapper;
 import com.devtiro.realestate.mappers.PropertyListingMapper;
 import com.devtiro.realestate.repositories.PropertyListingRepository;
+import com.devtiro.realestate.scheduling.ListingSnapshotPropagator;
+import com.devtiro.realestate.security.MetricsService;
+import com.devtiro.realestate.services.ListingCache;
 import com.devtiro.realestate.services.PropertyListingService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -31,7 +37,6 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -42,6 +47,9 @@ public class PropertyListingServiceImpl implements PropertyListingService {
     private final PropertyListingRepository propertyListingRepository;
     private final ElasticsearchOperations elasticsearchOperations;
     private final PhotoMapper photoMapper;
+    private final ListingSnapshotPropagator listingSnapshotPropagator;
+    private final MetricsService metricsService;
+    private final ListingCache listingCache;
 
     @Override
     public Page<PropertyListingResponseDto> getAllListings(Pageable pageable) {
@@ -49,6 +57,8 @@ public class PropertyListingServiceImpl implements PropertyListingService {
         return allListings.map(propertyListingMapper::toPropertyListingResponseDto);
     }
 
+    // Any listing change can change any search page, search results are short lived so a full clear is cheap
+    @CacheEvict(value = CacheRegistry.SEARCH_RESULTS, allEntries = true)
     @Override
     public PropertyListingResponseDto createPropertyListing(PropertyListingCreateRequest request, User agent) {
 
@@ -60,11 +70,12 @@ public class PropertyListingServiceImpl implements PropertyListingService {
 
         PropertyListing savedPropertyListing = propertyListingRepository.save(propertyListing);
 
-        PropertyListingResponseDto propertyListingResponseDto = propertyListingMapper.toPropertyListingResponseDto(savedPropertyListing);
+        PropertyListingResponseDto propertyListingResponseDto = listingCache.put(savedPropertyListing);
 
         return propertyListingResponseDto;
     }
 
+    @CacheEvict(value = CacheRegistry.SEARCH_RESULTS, allEntries = true)
     @Override
     public PropertyListingResponseDto uploadPhotos(List<PhotoDto> photos, String agentId, String propertyListingId) {
 
@@ -86,18 +97,21 @@ public class PropertyListingServiceImpl implements PropertyListingService {
         propertyListing.getPhotos().addAll(photosList);
 
         PropertyListing savedPropertyListing = propertyListingRepository.save(propertyListing);
-        return propertyListingMapper.toPropertyListingResponseDto(savedPropertyListing);
+        return listingCache.put(savedPropertyListing);
     }
 
     @Override
     public PropertyListingResponseDto getPropertyListingById(String propertyListingId) {
 
-        PropertyListing propertyListing = propertyListingRepository.findById(propertyListingId)
-                .orElseThrow(() -> new IllegalArgumentException("Property listing not found with ID: " + propertyListingId));
+        PropertyListingResponseDto propertyListing = listingCache.get(propertyListingId);
+        if (propertyListing == null) {
+            throw new IllegalArgumentException("Property listing not found with ID: " + propertyListingId);
+        }
 
-        return propertyListingMapper.toPropertyListingResponseDto(propertyListing);
+        return propertyListing;
     }
 
+    @CacheEvict(value = CacheRegistry.SEARCH_RESULTS, allEntries = true)
     @Override
     public PropertyListingResponseDto updatePropertyListing(PropertyListingUpdateRequest request, String agentId, String propertyListingId) {
 
@@ -108,15 +122,20 @@ public class PropertyListingServiceImpl implements PropertyListingService {
             throw new UnauthorizedException("You are not authorized to update this listing");
         }
 
+        var previousSnapshot = listingSnapshotPropagator.snapshotOf(propertyListing);
         propertyListingMapper.updateEntity(propertyListing, request);
 
         PropertyListing savedPropertyListing = propertyListingRepository.save(propertyListing);
 
         log.info("Updated Property Listing with id: {}", propertyListingId);
 
-        return propertyListingMapper.toPropertyListingResponseDto(savedPropertyListing);
+        // Viewings keep a copy of the title / address, refresh them asynchronously
+        listingSnapshotPropagator.propagateIfChanged(previousSnapshot, savedPropertyListing);
+
+        return listingCache.put(savedPropertyListing);
     }
 
+    @CacheEvict(value = CacheRegistry.SEARCH_RESULTS, allEntries = true)
     @Override
     public PropertyListingResponseDto updatePropertyListingStatus(PropertyListingStatusUpdateRequest request, String agentId, String propertyListingId) {
         PropertyListing propertyListing = propertyListingRepository.findById(propertyListingId)
@@ -136,9 +155,10 @@ public class PropertyListingServiceImpl implements PropertyListingService {
 
         log.info("Updated Property Listing status to {} for id: {}", request.getStatus(), propertyListingId);
 
-        return propertyListingMapper.toPropertyListingResponseDto(updatedPropertyListing);
+        return listingCache.put(updatedPropertyListing);
     }
 
+    @CacheEvict(value = CacheRegistry.SEARCH_RESULTS, allEntries = true)
     @Override
     public void deletePropertyListing(String agentId, String propertyListingId) {
         PropertyListing propertyListing = propertyListingRepository.findById(propertyListingId)
@@ -149,6 +169,7 @@ public class PropertyListingServiceImpl implements PropertyListingService {
         }
 
         propertyListingRepository.deleteById(propertyListingId);
+        listingCache.evict(propertyListingId);
 
         log.info("Deleted listing with id: {}", propertyListingId);
 
@@ -162,40 +183,56 @@ public class PropertyListingServiceImpl implements PropertyListingService {
     }
 
 
+    @Cacheable(value = CacheRegistry.SEARCH_RESULTS, key = "#criteria")
     @Override
     public PropertySearchResponseDto searchProperties(SearchCriteriaDto criteria) {
         log.info("Searching properties with criteria: {}", criteria);
 
         // Build the search criteria
+        long startTime = System.nanoTime();
         Criteria elasticCriteria = buildSearchCriteria(criteria);
 
         // Build the query with sorting and pagination
         Query query = buildQuery(elasticCriteria, criteria);
+        long queryBuiltTime = System.nanoTime();
 
         // Execute the search
         SearchHits<PropertyListing> searchHits = elasticsearchOperations.search(query, PropertyListing.class);
+        long searchedTime = System.nanoTime();
 
         // Convert results to DTOs and calculate distances if geo search
-        List<PropertyListingResponseDto> propertyDtos = searchHits.getSearchHits().stream()
-                .map(searchHit -> {
-                    PropertyListing property = searchHit.getContent();
-                    PropertyListingResponseDto dto = propertyListingMapper.toPropertyListingResponseDto(property);
-
-                    // Calculate and set distance if this is a geolocation search
-                    if (criteria.getLocation() != null && criteria.getLocation().getLat() != null
-                            && criteria.getLocation().getLon() != null && property.getLocation() != null) {
-                        double distance = calculateDistance(
-                                criteria.getLocation().getLat(),
-                                criteria.getLocation().getLon(),
-                                property.getLocation().getLat(),
-                                property.getLocation().getLon()
-                        );
-                        dto.setDistanceInKm(Math.round(distance * 100.0) / 100.0); // Round to 2 decimal places
-                    }
-
-                    return dto;
-                })
-                .collect(Collectors.toList());
+        boolean geoSearch = criteria.getLocation() != null && criteria.getLocation().getLat() != null
+                && criteria.getLocation().getLon() != null;
+        long distanceNanos = 0;
+        List<PropertyListingResponseDto> propertyDtos = new ArrayList<>(searchHits.getSearchHits().size());
+        for (var searchHit : searchHits.getSearchHits()) {
+            PropertyListing property = searchHit.getContent();
+            PropertyListingResponseDto dto = propertyListingMapper.toPropertyListingResponseDto(property);
+
+            // Calculate and set distance if this is a geolocation search
+            if (geoSearch && property.getLocation() != null) {
+                long distanceStartTime = System.nanoTime();
+                double distance = calculateDistance(
+                        criteria.getLocation().getLat(),
+                        criteria.getLocation().getLon(),
+                        property.getLocation().getLat(),
+                        property.getLocation().getLon()
+                );
+                dto.setDistanceInKm(Math.round(distance * 100.0) / 100.0); // Round to 2 decimal places
+                distanceNanos += System.nanoTime() - distanceStartTime;
+            }
+
+            propertyDtos.add(dto);
+        }
+
+        metricsService.recordSearchPhases(
+                queryBuiltTime - startTime,
+                searchedTime - queryBuiltTime,
+                System.nanoTime() - searchedTime - distanceNanos
+        );
+        if (geoSearch) {
+            metricsService.recordSearchDistanceDuration(distanceNanos);
+        }
 
         // Calculate pagination info
         int page = criteria.getPage() != null ? criteria.getPage() : 0;
@@ -9,6 +9,8 @@ import com.devtiro.realestate.exceptions.UnauthorizedException;
 import com.devtiro.realestate.mappers.PropertyViewingMapper;
 import com.devtiro.realestate.repositories.PropertyListingRepository;
 import com.devtiro.realestate.repositories.PropertyViewingRepository;
+import com.devtiro.realestate.scheduling.ListingSnapshotPropagator;
+import com.devtiro.realestate.scheduling.ViewingReminderScheduler;
 import com.devtiro.realestate.services.NotificationService;
 import com.devtiro.realestate.services.PropertyViewingService;
 import lombok.RequiredArgsConstructor;
@@ -19,7 +21,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.StreamSupport;
 
 
 @Service
@@ -27,6 +33,9 @@ import java.util.List;
 @RequiredArgsConstructor
 public class PropertyViewingServiceImpl implements PropertyViewingService {
 
+    private static final List<ViewingStatus> ACTIVE_VIEWING_STATUSES =
+            List.of(ViewingStatus.CONFIRMED, ViewingStatus.REQUESTED);
+
     @Value("${viewing.schedule.time-limit-in-minutes}")
     private int viewingScheduleTimeLimitInMinutes;
 
@@ -34,6 +43,7 @@ public class PropertyViewingServiceImpl implements PropertyViewingService {
     private final PropertyListingRepository listingRepository;
     private final PropertyViewingMapper viewingMapper;
     private final NotificationService notificationService;
+    private final ViewingReminderScheduler viewingReminderScheduler;
 
     @Override
     @Transactional
@@ -43,12 +53,18 @@ public class PropertyViewingServiceImpl implements PropertyViewingService {
         var listing = listingRepository.findById(listingId)
                 .orElseThrow(() -> new ResourceNotFoundException("Listing not found"));
 
-        var existingPropertyViewings = viewingRepository.findAllByPropertyListingId(listingId);
+        // Only active viewings around the requested time can conflict, expired / completed ones are
+        // moved out of this set by the ViewingStatusSweeper
+        var requestedDateTime = request.getScheduledDateTime();
+        var existingPropertyViewings = viewingRepository.findAllByPropertyListingIdAndStatusInAndScheduledDateTimeBetween(
+                listingId,
+                ACTIVE_VIEWING_STATUSES,
+                requestedDateTime.minusMinutes(viewingScheduleTimeLimitInMinutes),
+                requestedDateTime.plusMinutes(viewingScheduleTimeLimitInMinutes)
+        );
 
         // check double booking
         boolean hasConflict = existingPropertyViewings.stream()
-                .filter(v -> v.getStatus().equals(ViewingStatus.CONFIRMED) ||
-                        v.getStatus().equals(ViewingStatus.REQUESTED))
                 .anyMatch(v -> {
                     var scheduledTime = v.getScheduledDateTime();
                     var requestedTime = request.getScheduledDateTime();
@@ -67,7 +83,7 @@ public class PropertyViewingServiceImpl implements PropertyViewingService {
                 .userName(user.getFirstName() + " " + user.getLastName())
                 .userEmail(user.getEmail())
                 .userPhone(user.getPhoneNumber())
-                .propertyAddress(listing.getStreet() + ", " + listing.getCity() + ", " + listing.getState())
+                .propertyAddress(ListingSnapshotPropagator.formatPropertyAddress(listing))
                 .propertyTitle(listing.getTitle())
                 .scheduledDateTime(request.getScheduledDateTime())
                 .status(ViewingStatus.REQUESTED)
@@ -135,11 +151,54 @@ public class PropertyViewingServiceImpl implements PropertyViewingService {
         PropertyViewing savedViewing = viewingRepository.save(viewing);
 
         notificationService.notifyUserOnConfirmedViewingByAgent(savedViewing, agent);
+        viewingReminderScheduler.refresh(savedViewing);
 
         return viewingMapper.toPropertyViewingResponseDto(savedViewing);
 
     }
 
+    @Override
+    public List<PropertyViewingResponseDto> bulkConfirmViewings(BulkViewingConfirmRequest request, User agent) {
+        var viewings = loadAgentViewings(request.getPropertyViewingIds(), agent, "confirm");
+
+        viewings.forEach(viewing -> {
+            if (request.getNotes() != null) {
+                viewing.setNotes(viewing.getNotes() + "\n" + request.getNotes());
+            }
+            viewing.setStatus(ViewingStatus.CONFIRMED);
+        });
+
+        var savedViewings = saveAllViewings(viewings);
+        log.info("Bulk confirmed {} viewings for agent: {}", savedViewings.size(), agent.getId());
+
+        notificationService.notifyUsersOnBulkConfirmedViewings(savedViewings, agent);
+        savedViewings.forEach(viewingReminderScheduler::refresh);
+
+        return savedViewings.stream()
+                .map(viewingMapper::toPropertyViewingResponseDto)
+                .toList();
+    }
+
+    @Override
+    public List<PropertyViewingResponseDto> bulkCancelViewings(BulkViewingCancelRequest request, User agent) {
+        var viewings = loadAgentViewings(request.getPropertyViewingIds(), agent, "cancel");
+
+        viewings.forEach(viewing -> {
+            viewing.setStatus(ViewingStatus.CANCELLED);
+            viewing.setCancellationReason(request.getReason());
+        });
+
+        var savedViewings = saveAllViewings(viewings);
+        log.info("Bulk cancelled {} viewings for agent: {}", savedViewings.size(), agent.getId());
+
+        notificationService.notifyUsersOnBulkCancelledViewings(savedViewings);
+        savedViewings.forEach(viewingReminderScheduler::refresh);
+
+        return savedViewings.stream()
+                .map(viewingMapper::toPropertyViewingResponseDto)
+                .toList();
+    }
+
     @Override
     public PropertyViewingResponseDto rescheduleViewing(String viewingId, PropertyViewingRescheduleRequest request, User userPrincipal) {
 
@@ -157,6 +216,7 @@ public class PropertyViewingServiceImpl implements PropertyViewingService {
         var updatedViewing = viewingRepository.save(viewing);
 
         notificationService.notifyViewingRescheduled(viewing, userPrincipal);
+        viewingReminderScheduler.refresh(updatedViewing);
 
         return viewingMapper.toPropertyViewingResponseDto(updatedViewing);
     }
@@ -178,6 +238,7 @@ public class PropertyViewingServiceImpl implements PropertyViewingService {
         log.info("Cancelled viewing with id: {}", viewingId);
 
         notificationService.notifyViewingCancelled(viewing, userPrincipal);
+        viewingReminderScheduler.refresh(updatedViewing);
 
         return viewingMapper.toPropertyViewingResponseDto(updatedViewing);
     }
@@ -198,8 +259,41 @@ public class PropertyViewingServiceImpl implements PropertyViewingService {
 
         var updatedViewing = viewingRepository.save(viewing);
         log.info("Updated viewing status to {} for id: {}", request.getStatus(), viewingId);
+        viewingReminderScheduler.refresh(updatedViewing);
 
         return viewingMapper.toPropertyViewingResponseDto(updatedViewing);
     }
 
-}
\ No newline at end of file
+    /**
+     * Fetch all viewings of a bulk request in one multi_get and make sure the agent owns every one of them.
+     * The whole request is rejected before anything is written if a single viewing is missing or foreign.
+     */
+    private List<PropertyViewing> loadAgentViewings(List<String> viewingIds, User agent, String action) {
+        Set<String> uniqueIds = new LinkedHashSet<>(viewingIds);
+
+        List<PropertyViewing> viewings = new ArrayList<>(uniqueIds.size());
+        viewingRepository.findAllById(uniqueIds).forEach(viewings::add);
+
+        if (viewings.size() != uniqueIds.size()) {
+            var foundIds = viewings.stream().map(PropertyViewing::getId).toList();
+            var missingIds = uniqueIds.stream().filter(id -> !foundIds.contains(id)).toList();
+            throw new IllegalArgumentException("Viewings not found with IDs: " + missingIds);
+        }
+
+        boolean foreignViewing = viewings.stream().anyMatch(v -> !v.getAgentId().equals(agent.getId()));
+        if (foreignViewing) {
+            throw new UnauthorizedException("Only the owner agent can " + action + " the viewings");
+        }
+
+        return viewings;
+    }
+
+    /**
+     * Write all changed viewings with a single _bulk request
+     */
+    private List<PropertyViewing> saveAllViewings(List<PropertyViewing> viewings) {
+        return StreamSupport.stream(viewingRepository.saveAll(viewings).spliterator(), false)
+                .toList();
+    }
+
+}
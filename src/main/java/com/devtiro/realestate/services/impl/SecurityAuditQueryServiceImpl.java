@@ -0,0 +1,129 @@
+package com.devtiro.realestate.services.impl;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.aggregations.StringTermsBucket;
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import com.devtiro.realestate.domain.dto.AuditTermCountDto;
+import com.devtiro.realestate.domain.dto.SecurityAuditEventDto;
+import com.devtiro.realestate.domain.entities.SecurityAuditRecord;
+import com.devtiro.realestate.security.ElasticsearchSecurityAuditSink;
+import com.devtiro.realestate.security.SecurityAuditEventType;
+import com.devtiro.realestate.services.SecurityAuditQueryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Incident queries over the daily security audit indices, answered with aggregations
+ * instead of fetching events
+ */
+@Service
+@RequiredArgsConstructor
+public class SecurityAuditQueryServiceImpl implements SecurityAuditQueryService {
+
+    private static final IndexCoordinates AUDIT_INDICES = IndexCoordinates.of(ElasticsearchSecurityAuditSink.INDEX_PATTERN);
+    private static final String TERMS_AGGREGATION = "terms";
+    private static final int MAX_BUCKETS = 100;
+    private static final int MAX_TIMELINE_EVENTS = 1000;
+
+    private final ElasticsearchOperations elasticsearchOperations;
+
+    @Override
+    public List<AuditTermCountDto> getTopIpAddresses(SecurityAuditEventType type, int sinceMinutes, int size) {
+        return countTerms("ipAddress", sinceMinutes, size, filter -> {
+            if (type != null) {
+                filter.filter(typeQuery(type));
+            }
+        });
+    }
+
+    @Override
+    public List<AuditTermCountDto> getFailureReasons(SecurityAuditEventType type, int sinceMinutes, int size) {
+        return countTerms("reason", sinceMinutes, size, filter -> {
+            if (type != null) {
+                filter.filter(typeQuery(type));
+            } else {
+                // Reasons are only recorded for failures, restrict to warnings anyway to keep the counts meaningful
+                List<FieldValue> warningTypes = Arrays.stream(SecurityAuditEventType.values())
+                        .filter(SecurityAuditEventType::isWarning)
+                        .map(warningType -> FieldValue.of(warningType.name()))
+                        .toList();
+                filter.filter(f -> f.terms(t -> t.field("type").terms(v -> v.value(warningTypes))));
+            }
+        });
+    }
+
+    @Override
+    public List<SecurityAuditEventDto> getUserTimeline(String email, int sinceMinutes, int size) {
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(q -> q.bool(b -> b
+                        .filter(sinceQuery(sinceMinutes))
+                        .filter(f -> f.term(t -> t.field("user").value(email)))))
+                .withSort(s -> s.field(f -> f.field("timestamp").order(SortOrder.Desc)))
+                .withMaxResults(Math.clamp(size, 1, MAX_TIMELINE_EVENTS))
+                .build();
+
+        SearchHits<SecurityAuditRecord> hits = elasticsearchOperations.search(query, SecurityAuditRecord.class, AUDIT_INDICES);
+        return hits.stream()
+                .map(SearchHit::getContent)
+                .map(this::toDto)
+                .toList();
+    }
+
+    private List<AuditTermCountDto> countTerms(String field, int sinceMinutes, int size, Consumer<BoolQuery.Builder> filters) {
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(q -> q.bool(b -> {
+                    b.filter(sinceQuery(sinceMinutes));
+                    filters.accept(b);
+                    return b;
+                }))
+                .withAggregation(TERMS_AGGREGATION, Aggregation.of(a -> a.terms(t -> t.field(field).size(Math.clamp(size, 1, MAX_BUCKETS)))))
+                .withMaxResults(0)
+                .build();
+
+        SearchHits<SecurityAuditRecord> hits = elasticsearchOperations.search(query, SecurityAuditRecord.class, AUDIT_INDICES);
+        ElasticsearchAggregations aggregations = (ElasticsearchAggregations) hits.getAggregations();
+        if (aggregations == null) {
+            return List.of();
+        }
+
+        List<StringTermsBucket> buckets = aggregations.get(TERMS_AGGREGATION).aggregation().getAggregate()
+                .sterms().buckets().array();
+        return buckets.stream()
+                .map(bucket -> AuditTermCountDto.builder()
+                        .key(bucket.key().stringValue())
+                        .count(bucket.docCount())
+                        .build())
+                .toList();
+    }
+
+    private Query sinceQuery(int sinceMinutes) {
+        return Query.of(q -> q.range(r -> r.date(d -> d.field("timestamp").gte("now-" + Math.max(1, sinceMinutes) + "m"))));
+    }
+
+    private Query typeQuery(SecurityAuditEventType type) {
+        return Query.of(q -> q.term(t -> t.field("type").value(type.name())));
+    }
+
+    private SecurityAuditEventDto toDto(SecurityAuditRecord auditRecord) {
+        return SecurityAuditEventDto.builder()
+                .timestamp(auditRecord.getTimestamp())
+                .type(auditRecord.getType())
+                .user(auditRecord.getUser())
+                .ipAddress(auditRecord.getIpAddress())
+                .details(auditRecord.getDetails())
+                .build();
+    }
+}
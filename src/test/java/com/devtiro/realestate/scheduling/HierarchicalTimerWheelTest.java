@@ -0,0 +1,165 @@
+package com.devtiro.realestate.scheduling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Time is only moved by advance(now), so every test drives the wheel tick by tick
+ * 1 ms ticks, 4 slots and 3 levels: level 0 covers 4 ticks, level 1 16 and level 2 64
+ */
+class HierarchicalTimerWheelTest {
+
+    private static final int WHEEL_SIZE = 4;
+    private static final int LEVELS = 3;
+    private static final long HORIZON = 64;
+
+    private final HierarchicalTimerWheel<String, String> wheel = new HierarchicalTimerWheel<>(1, WHEEL_SIZE, LEVELS, 0);
+
+    @Test
+    void timerOnTheCoarsestLevelCascadesDownAndFiresOnItsTick() {
+        wheel.schedule("a", 50, "a");
+
+        assertEquals(Map.of("a", 50L), advanceTickByTick(0, 100));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void timersOnEveryLevelFireOnTheirExactTick() {
+        Map<String, Long> deadlines = Map.of(
+                "level0", 3L,
+                "level1", 13L,
+                "level2", 63L,
+                "level1AfterCascade", 20L,
+                "slotBoundary", 16L
+        );
+        deadlines.forEach((key, deadline) -> wheel.schedule(key, deadline, key));
+
+        assertEquals(deadlines, advanceTickByTick(0, HORIZON + 10));
+    }
+
+    @Test
+    void randomTimersFireOnTheirTickInDeadlineOrder() {
+        Random random = new Random(42);
+        Map<String, Long> deadlines = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            long deadline = 1 + random.nextInt((int) (HORIZON * 5));
+            deadlines.put("t" + i, deadline);
+            wheel.schedule("t" + i, deadline, "t" + i);
+        }
+
+        List<String> fired = new ArrayList<>();
+        Map<String, Long> firedAt = new HashMap<>();
+        for (long now = 1; now <= HORIZON * 5; now++) {
+            for (String key : wheel.advance(now)) {
+                fired.add(key);
+                firedAt.put(key, now);
+            }
+        }
+
+        assertEquals(deadlines, firedAt);
+        for (int i = 1; i < fired.size(); i++) {
+            assertTrue(deadlines.get(fired.get(i - 1)) <= deadlines.get(fired.get(i)));
+        }
+    }
+
+    @Test
+    void timersBeyondTheHorizonWaitInOverflowAndFireOnTime() {
+        wheel.schedule("far", 200, "far");
+        wheel.schedule("farther", HORIZON * 10 + 3, "farther");
+
+        assertEquals(Map.of("far", 200L, "farther", HORIZON * 10 + 3), advanceTickByTick(0, HORIZON * 11));
+    }
+
+    @Test
+    void timerBeyondTheHorizonFiresWhenTheWheelJumpsPastIt() {
+        wheel.schedule("far", 200, "far");
+
+        assertEquals(List.of(), wheel.advance(199));
+        assertEquals(List.of("far"), wheel.advance(1000));
+    }
+
+    @Test
+    void cancelledTimerNeverFires() {
+        wheel.schedule("a", 10, "a");
+        wheel.schedule("b", 40, "b");
+        wheel.schedule("c", 300, "c");
+
+        assertTrue(wheel.cancel("a"));
+        assertTrue(wheel.cancel("c"));
+        assertFalse(wheel.cancel("a"));
+        assertFalse(wheel.contains("a"));
+        assertFalse(wheel.cancel("unknown"));
+
+        assertEquals(Map.of("b", 40L), advanceTickByTick(0, 400));
+    }
+
+    @Test
+    void cancelAfterCascadeRemovesTheTimerFromItsNewSlot() {
+        wheel.schedule("a", 50, "a");
+        advanceTickByTick(0, 49);
+
+        assertTrue(wheel.cancel("a"));
+        assertEquals(List.of(), wheel.advance(100));
+    }
+
+    @Test
+    void rescheduleReplacesThePendingTimer() {
+        wheel.schedule("later", 10, "first");
+        wheel.schedule("later", 40, "second");
+        wheel.schedule("earlier", 200, "first");
+        wheel.schedule("earlier", 5, "second");
+
+        assertEquals(2, wheel.size());
+        List<String> fired = new ArrayList<>();
+        for (long now = 1; now <= 300; now++) {
+            fired.addAll(wheel.advance(now));
+        }
+        assertEquals(List.of("second", "second"), fired);
+    }
+
+    @Test
+    void timerAlreadyDueFiresOnTheNextAdvanceWithoutMovingTime() {
+        wheel.advance(100);
+        wheel.schedule("past", 20, "past");
+        wheel.schedule("now", 100, "now");
+
+        assertEquals(List.of("past", "now"), wheel.advance(100));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void deadlinesAreRoundedUpToTheNextTick() {
+        HierarchicalTimerWheel<String, String> coarseWheel = new HierarchicalTimerWheel<>(10, WHEEL_SIZE, LEVELS, 1_000);
+        coarseWheel.schedule("a", 1_005, "a");
+
+        assertEquals(List.of(), coarseWheel.advance(1_009));
+        assertEquals(List.of("a"), coarseWheel.advance(1_010));
+    }
+
+    @Test
+    void rejectsInvalidDimensions() {
+        assertThrows(IllegalArgumentException.class, () -> new HierarchicalTimerWheel<>(0, WHEEL_SIZE, LEVELS, 0));
+        assertThrows(IllegalArgumentException.class, () -> new HierarchicalTimerWheel<>(1, 1, LEVELS, 0));
+        assertThrows(IllegalArgumentException.class, () -> new HierarchicalTimerWheel<>(1, WHEEL_SIZE, 0, 0));
+    }
+
+    /**
+     * Advance one tick at a time and record the tick each value fired on
+     */
+    private Map<String, Long> advanceTickByTick(long from, long to) {
+        Map<String, Long> firedAt = new HashMap<>();
+        for (long now = from + 1; now <= to; now++) {
+            for (String value : wheel.advance(now)) {
+                assertNull(firedAt.put(value, now), "fired twice: " + value);
+            }
+        }
+        return firedAt;
+    }
+}
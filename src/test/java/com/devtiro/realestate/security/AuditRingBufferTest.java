@@ -0,0 +1,141 @@
+package com.devtiro.realestate.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditRingBufferTest {
+
+    @Test
+    void roundsCapacityUpToAPowerOfTwo() {
+        assertEquals(2, new AuditRingBuffer<String>(1).capacity());
+        assertEquals(2, new AuditRingBuffer<String>(2).capacity());
+        assertEquals(4, new AuditRingBuffer<String>(3).capacity());
+        assertEquals(8, new AuditRingBuffer<String>(5).capacity());
+        assertEquals(1024, new AuditRingBuffer<String>(1000).capacity());
+        assertEquals(8192, new AuditRingBuffer<String>(8192).capacity());
+    }
+
+    @Test
+    void rejectsElementsWhenFull() {
+        AuditRingBuffer<Integer> buffer = new AuditRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+
+        assertFalse(buffer.offer(4));
+        assertEquals(4, buffer.size());
+
+        assertEquals(0, buffer.poll());
+        assertTrue(buffer.offer(4));
+        assertFalse(buffer.offer(5));
+    }
+
+    @Test
+    void emptyBufferPollsNull() {
+        AuditRingBuffer<Integer> buffer = new AuditRingBuffer<>(4);
+
+        assertNull(buffer.poll());
+        buffer.offer(1);
+        buffer.poll();
+        assertNull(buffer.poll());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void keepsFifoOrderAcrossWrapArounds() {
+        AuditRingBuffer<Integer> buffer = new AuditRingBuffer<>(4);
+        int next = 0;
+        int expected = 0;
+
+        // Fill up, then take 3: the start moves through every slot and the sequence wraps many times
+        for (int round = 0; round < 100; round++) {
+            while (buffer.offer(next)) {
+                next++;
+            }
+            assertEquals(4, buffer.size());
+            for (int i = 0; i < 3; i++) {
+                assertEquals(expected++, buffer.poll());
+            }
+        }
+        while (expected < next) {
+            assertEquals(expected++, buffer.poll());
+        }
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    void everyAcceptedElementIsPolledExactlyOnceInProducerOrder() throws Exception {
+        int producers = 8;
+        int perProducer = 200_000;
+        // Small buffer, producers keep hitting the full case and the sequence wraps many times
+        AuditRingBuffer<Item> buffer = new AuditRingBuffer<>(64);
+
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<BitSet>> futures = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            futures.add(executor.submit(() -> {
+                BitSet accepted = new BitSet(perProducer);
+                start.await();
+                for (int i = 0; i < perProducer; i++) {
+                    if (buffer.offer(new Item(producer, i))) {
+                        accepted.set(i);
+                    }
+                }
+                return accepted;
+            }));
+        }
+
+        BitSet[] received = new BitSet[producers];
+        int[] lastReceived = new int[producers];
+        for (int p = 0; p < producers; p++) {
+            received[p] = new BitSet(perProducer);
+            lastReceived[p] = -1;
+        }
+
+        try {
+            start.countDown();
+            boolean producersDone = false;
+            while (true) {
+                Item item = buffer.poll();
+                if (item == null) {
+                    if (producersDone) {
+                        break;
+                    }
+                    producersDone = futures.stream().allMatch(Future::isDone);
+                    Thread.onSpinWait();
+                    continue;
+                }
+                assertFalse(received[item.producer()].get(item.sequence()), () -> "polled twice: " + item);
+                assertTrue(item.sequence() > lastReceived[item.producer()], () -> "out of order: " + item);
+                received[item.producer()].set(item.sequence());
+                lastReceived[item.producer()] = item.sequence();
+            }
+
+            long acceptedTotal = 0;
+            for (int p = 0; p < producers; p++) {
+                BitSet accepted = futures.get(p).get(30, TimeUnit.SECONDS);
+                acceptedTotal += accepted.cardinality();
+                assertEquals(accepted, received[p], "producer " + p);
+            }
+            assertTrue(acceptedTotal > 0);
+            assertEquals(0, buffer.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private record Item(int producer, int sequence) {
+    }
+}
@@ -0,0 +1,107 @@
+package com.devtiro.realestate.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    void hasNoFalseNegativesAfterConcurrentAdds() throws Exception {
+        int threads = 8;
+        int perThread = 20_000;
+        BloomFilter filter = BloomFilter.create((long) threads * perThread, 0.01);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        filter.put("token-" + thread + "-" + i);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int t = 0; t < threads; t++) {
+            for (int i = 0; i < perThread; i++) {
+                String value = "token-" + t + "-" + i;
+                assertTrue(filter.mightContain(value), () -> "false negative for " + value);
+            }
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysWithinTheConfiguredBound() {
+        assertFalsePositiveRateWithin(10_000, 0.01);
+        assertFalsePositiveRateWithin(100_000, 0.001);
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = BloomFilter.create(1_000, 0.01);
+
+        for (int i = 0; i < 1_000; i++) {
+            assertFalse(filter.mightContain("token-" + i));
+        }
+    }
+
+    @Test
+    void sizesBitsAndHashesFromTheExpectedInsertions() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+
+        // m = -n ln p / ln2^2 ~ 95851 bits, k = m / n ln2 ~ 7
+        assertEquals(0, filter.bitCount() % 64);
+        assertTrue(filter.bitCount() >= 95_851 && filter.bitCount() < 95_851 + 64);
+        assertEquals(7, filter.hashCount());
+    }
+
+    @Test
+    void rejectsInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> BloomFilter.create(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> BloomFilter.create(100, 0));
+        assertThrows(IllegalArgumentException.class, () -> BloomFilter.create(100, 1));
+    }
+
+    /**
+     * Fill the filter to its expected size and probe values that were never added
+     * The hash is deterministic, the margin only covers the deviation of the sizing formula
+     */
+    private static void assertFalsePositiveRateWithin(int insertions, double falsePositiveProbability) {
+        BloomFilter filter = BloomFilter.create(insertions, falsePositiveProbability);
+        for (int i = 0; i < insertions; i++) {
+            filter.put("revoked-" + i);
+        }
+
+        int probes = 1_000_000;
+        int falsePositives = 0;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("valid-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        double rate = (double) falsePositives / probes;
+        assertTrue(rate <= falsePositiveProbability * 1.25,
+                () -> "false positive rate " + rate + " above " + falsePositiveProbability);
+    }
+}
@@ -0,0 +1,133 @@
+package com.devtiro.realestate.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The bucket takes the time as an argument, every test runs on its own clock starting at START
+ */
+class TokenBucketTest {
+
+    private static final long START = TimeUnit.DAYS.toNanos(1);
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void allowsABurstOfCapacityThenRejects() {
+        TokenBucket bucket = new TokenBucket(5, 1, SECOND, START);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryConsume(START), "request " + i);
+        }
+        assertEquals(SECOND, bucket.tryConsume(START));
+    }
+
+    @Test
+    void refillsOneTokenPerEmissionInterval() {
+        // 10 tokens per second, one every 100 ms
+        TokenBucket bucket = new TokenBucket(2, 10, SECOND, START);
+        long interval = SECOND / 10;
+        bucket.tryConsume(START);
+        bucket.tryConsume(START);
+
+        assertEquals(interval, bucket.tryConsume(START));
+        assertEquals(1, bucket.tryConsume(START + interval - 1));
+        assertEquals(0, bucket.tryConsume(START + interval));
+        assertEquals(interval, bucket.tryConsume(START + interval));
+
+        // Sustained rate: one request per interval is always allowed
+        for (int i = 2; i < 100; i++) {
+            assertEquals(0, bucket.tryConsume(START + i * interval), "request at interval " + i);
+        }
+    }
+
+    @Test
+    void idleBucketRefillsToCapacityButNotBeyond() {
+        TokenBucket bucket = new TokenBucket(3, 1, SECOND, START);
+        for (int i = 0; i < 3; i++) {
+            bucket.tryConsume(START);
+        }
+
+        long later = START + 3600 * SECOND;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.tryConsume(later), "request " + i);
+        }
+        assertEquals(SECOND, bucket.tryConsume(later));
+    }
+
+    @Test
+    void rejectedRequestsDoNotConsumeTokens() {
+        TokenBucket bucket = new TokenBucket(1, 1, SECOND, START);
+        bucket.tryConsume(START);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(bucket.tryConsume(START + SECOND / 2) > 0);
+        }
+        assertEquals(0, bucket.tryConsume(START + SECOND));
+    }
+
+    @Test
+    void retryAfterIsTheWaitRoundedUpToWholeSeconds() {
+        TokenBucket bucket = new TokenBucket(1, 1, 30 * SECOND, START);
+        bucket.tryConsume(START);
+
+        long waitNanos = bucket.tryConsume(START + SECOND / 2);
+        assertEquals(30 * SECOND - SECOND / 2, waitNanos);
+        assertEquals(30, TokenBucket.retryAfterSeconds(waitNanos));
+
+        assertEquals(1, TokenBucket.retryAfterSeconds(1));
+        assertEquals(1, TokenBucket.retryAfterSeconds(SECOND));
+        assertEquals(2, TokenBucket.retryAfterSeconds(SECOND + 1));
+    }
+
+    @Test
+    void concurrentRequestsNeverGetMoreThanTheBurst() throws Exception {
+        int capacity = 1_000;
+        int threads = 16;
+        int attemptsPerThread = 500;
+        // No refill within the test, the clock stands still
+        TokenBucket bucket = new TokenBucket(capacity, 1, TimeUnit.HOURS.toNanos(1), START);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    int allowed = 0;
+                    for (int i = 0; i < attemptsPerThread; i++) {
+                        if (bucket.tryConsume(START) == 0) {
+                            allowed++;
+                        }
+                    }
+                    return allowed;
+                }));
+            }
+            start.countDown();
+
+            int allowed = 0;
+            for (Future<Integer> future : futures) {
+                allowed += future.get(30, TimeUnit.SECONDS);
+            }
+            assertEquals(capacity, allowed);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1, SECOND, START));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 0, SECOND, START));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 1, 0, START));
+    }
+}